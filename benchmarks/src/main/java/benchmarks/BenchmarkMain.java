@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs JMH with the usual command line options, always with the GC profiler, so every result
+// carries gc.alloc.rate.norm (bytes allocated per operation). Afterwards that figure is divided
+// by the corpus sentence count to give bytes per sentence, which is comparable across sizes.
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            // Listing and help are plain JMH
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        printBytesPerSentence(results);
+    }
+
+    private static void printBytesPerSentence(Collection<RunResult> results) {
+        System.out.println();
+        System.out.printf("%-50s %8s %8s %12s%n", "Benchmark", "format", "size", "B/sentence");
+        for (RunResult result : results) {
+            String size = result.getParams().getParam("size");
+            Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            long sentences = size == null ? -1 : Corpora.sentenceCount(size);
+            if (allocation == null || sentences <= 0) {
+                continue;
+            }
+            String format = result.getParams().getParam("format");
+            System.out.printf("%-50s %8s %8s %12.1f%n", result.getParams().getBenchmark(),
+                    format == null ? "-" : format, size, allocation.getScore() / sentences);
+        }
+    }
+}
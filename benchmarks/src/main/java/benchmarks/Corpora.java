@@ -0,0 +1,203 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+// Deterministic synthetic corpora, from 1KB to 1GB of English-like text. Word frequencies follow
+// a Zipf-like curve with real stopwords mixed in, sentences are 6 to 30 words and end in '.',
+// '!' or '?', and every few sentences start a new line, so both summarizers see realistic
+// sentence and vocabulary shapes. Generated files are kept in java.io.tmpdir/summarizer-corpora
+// and reused by later runs; a .sentences file next to each records how many sentences it has.
+final class Corpora {
+
+    private static final String[] STOP_WORDS = {
+        "a", "an", "the", "and", "or", "but", "if", "while",
+        "with", "is", "in", "at", "of", "on", "for", "to", "from"
+    };
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final Path DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "summarizer-corpora");
+
+    private Corpora() {
+    }
+
+    // "1KB", "64KB", "16MB", "1GB", ...
+    static long parseSize(String size) {
+        String upper = size.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (upper.endsWith("KB")) {
+            unit = 1L << 10;
+        } else if (upper.endsWith("MB")) {
+            unit = 1L << 20;
+        } else if (upper.endsWith("GB")) {
+            unit = 1L << 30;
+        }
+        String digits = unit == 1 ? upper : upper.substring(0, upper.length() - 2);
+        return Long.parseLong(digits) * unit;
+    }
+
+    // The plain text corpus of the given size, generated on first use
+    static Path textFile(String size) throws IOException {
+        Path file = DIRECTORY.resolve(size + ".txt");
+        if (!Files.exists(file)) {
+            Files.createDirectories(DIRECTORY);
+            Path temporary = Files.createTempFile(DIRECTORY, size, ".tmp");
+            long sentences;
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                sentences = generate(parseSize(size), out);
+            }
+            Files.writeString(DIRECTORY.resolve(size + ".sentences"), Long.toString(sentences));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    static String text(String size) throws IOException {
+        return Files.readString(textFile(size), StandardCharsets.UTF_8);
+    }
+
+    // Sentences in the corpus of the given size, or -1 if it has not been generated yet
+    static long sentenceCount(String size) {
+        try {
+            return Long.parseLong(Files.readString(DIRECTORY.resolve(size + ".sentences")).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // The corpus of the given size as a txt, docx or pdf file. Legacy .doc cannot be written
+    // (POI's HWPF only edits existing documents), so it is not generated.
+    static Path file(String format, String size) throws IOException {
+        Path text = textFile(size);
+        if (format.equals("txt")) {
+            return text;
+        }
+        Path file = DIRECTORY.resolve(size + "." + format);
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path temporary = Files.createTempFile(DIRECTORY, size, ".tmp");
+        switch (format) {
+            case "docx":
+                writeDocx(text, temporary);
+                break;
+            case "pdf":
+                writePdf(text, temporary);
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot generate ." + format + " corpora");
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    // Write at least the given number of chars and return the number of sentences written
+    private static long generate(long chars, Writer out) throws IOException {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(random);
+        StringBuilder sentence = new StringBuilder(256);
+        long written = 0;
+        long sentences = 0;
+        while (written < chars) {
+            sentence.setLength(0);
+            int words = 6 + random.nextInt(25);
+            for (int i = 0; i < words; i++) {
+                String word = random.nextInt(4) == 0
+                        ? STOP_WORDS[random.nextInt(STOP_WORDS.length)]
+                        : vocabulary[zipf(random, vocabulary.length)];
+                if (i == 0) {
+                    sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                } else {
+                    sentence.append(' ').append(word);
+                }
+                if (i < words - 1 && random.nextInt(12) == 0) {
+                    sentence.append(',');
+                }
+            }
+            int end = random.nextInt(20);
+            sentence.append(end == 0 ? '!' : end == 1 ? '?' : '.');
+            sentence.append(++sentences % 6 == 0 ? '\n' : ' ');
+            out.append(sentence);
+            written += sentence.length();
+        }
+        return sentences;
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < words.length; i++) {
+            int length = 2 + Math.min(random.nextInt(6) + random.nextInt(6), 12);
+            char[] word = new char[length];
+            for (int c = 0; c < length; c++) {
+                word[c] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(word);
+        }
+        return words;
+    }
+
+    // Index skewed towards the front: a few words are very common, most are rare
+    private static int zipf(Random random, int size) {
+        double u = random.nextDouble();
+        return (int) (size * u * u * u);
+    }
+
+    private static void writeDocx(Path text, Path target) throws IOException {
+        try (XWPFDocument document = new XWPFDocument();
+             OutputStream out = Files.newOutputStream(target)) {
+            try (var lines = Files.lines(text, StandardCharsets.UTF_8)) {
+                lines.forEach(line -> document.createParagraph().createRun().setText(line));
+            }
+            document.write(out);
+        }
+    }
+
+    private static void writePdf(Path text, Path target) throws IOException {
+        int linesPerPage = 60;
+        int charsPerLine = 100;
+        try (PDDocument document = new PDDocument();
+             var lines = Files.lines(text, StandardCharsets.UTF_8)) {
+            PDPageContentStream page = null;
+            int lineOnPage = linesPerPage;
+            for (String paragraph : (Iterable<String>) lines::iterator) {
+                for (int from = 0; from < paragraph.length(); from += charsPerLine) {
+                    if (lineOnPage == linesPerPage) {
+                        if (page != null) {
+                            page.endText();
+                            page.close();
+                        }
+                        PDPage next = new PDPage();
+                        document.addPage(next);
+                        page = new PDPageContentStream(document, next);
+                        page.beginText();
+                        page.setFont(PDType1Font.HELVETICA, 9);
+                        page.setLeading(12);
+                        page.newLineAtOffset(36, 756);
+                        lineOnPage = 0;
+                    }
+                    page.showText(paragraph.substring(from, Math.min(from + charsPerLine, paragraph.length())));
+                    page.newLine();
+                    lineOnPage++;
+                }
+            }
+            if (page != null) {
+                page.endText();
+                page.close();
+            }
+            document.save(target.toFile());
+        }
+    }
+}
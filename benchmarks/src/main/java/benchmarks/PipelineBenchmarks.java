@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The two summarizers end to end on the same text, with the summary cache turned off so every
+// invocation does the full work
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsummarizer.cache.entries=0"})
+public class PipelineBenchmarks {
+
+    @Param({"1KB", "64KB", "1MB", "16MB"})
+    public String size;
+
+    @Param({"5"})
+    public int sentences;
+
+    private String text;
+    private Object app;
+
+    @Setup(Level.Trial)
+    public void prepare() throws Throwable {
+        text = Corpora.text(size);
+        app = Summarizers.newApp();
+    }
+
+    @Benchmark
+    public String documentSummarizer() throws Throwable {
+        return Summarizers.summarizeText(text, sentences);
+    }
+
+    @Benchmark
+    public String appSummarizer() throws Throwable {
+        return Summarizers.appSummarize(app, text, sentences);
+    }
+}
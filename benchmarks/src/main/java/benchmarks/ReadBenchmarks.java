@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Document reading per format: readFile extracts one String, readStatistics is the streaming
+// reader summarizeFile uses. The docx and pdf corpora are generated from the text corpus of the
+// same size, so the extracted text is comparable across formats. .doc has no generator.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsummarizer.cache.entries=0"})
+public class ReadBenchmarks {
+
+    @Param({"txt", "docx", "pdf"})
+    public String format;
+
+    @Param({"1KB", "64KB", "1MB"})
+    public String size;
+
+    private String filename;
+
+    @Setup(Level.Trial)
+    public void prepare() throws Throwable {
+        filename = Corpora.file(format, size).toString();
+    }
+
+    @Benchmark
+    public String readFile() throws Throwable {
+        return Summarizers.readFile(filename);
+    }
+
+    @Benchmark
+    public Object readStatistics() throws Throwable {
+        return Summarizers.readStatistics(filename);
+    }
+}
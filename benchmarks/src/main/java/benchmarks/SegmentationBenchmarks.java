@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Sentence splitting and word normalization: the original regex pipelines of both summarizers
+// (copied here, they are no longer in the tree) against the ASCII Tokenizer that replaced them
+// and the language-aware SentenceSegmenter of -Dsummarizer.language. Every variant produces the
+// sentences and their words; the regex ones as Strings, the others as term IDs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsummarizer.cache.entries=0"})
+public class SegmentationBenchmarks {
+
+    private static final Pattern SENTENCE = Pattern.compile("([^\\.]+\\.)");
+    private static final Pattern SENTENCE_SPLIT = Pattern.compile("(?<=[.!?])\\s+");
+    private static final Pattern WORD_SPLIT = Pattern.compile("\\s+");
+
+    @Param({"64KB", "1MB", "16MB"})
+    public String size;
+
+    private String text;
+    private Object english;
+
+    @Setup(Level.Trial)
+    public void prepare() throws Throwable {
+        text = Corpora.text(size);
+        english = Summarizers.language("en");
+    }
+
+    // DocumentSummarizer.preprocessText before the Tokenizer
+    @Benchmark
+    public List<String[]> documentRegex() {
+        String cleaned = text.toLowerCase().replaceAll("\\n", " ").replaceAll("[^a-zA-Z0-9\\.\\s]", "");
+        List<String[]> sentences = new ArrayList<>();
+        Matcher matcher = SENTENCE.matcher(cleaned);
+        while (matcher.find()) {
+            String sentence = matcher.group(1).trim();
+            sentences.add(sentence.split("\\s+"));
+        }
+        return sentences;
+    }
+
+    // TextSummarizerAppWithLineWrap's sentence split and cleanText before the Tokenizer
+    @Benchmark
+    public List<String[]> appRegex() {
+        List<String[]> sentences = new ArrayList<>();
+        for (String sentence : SENTENCE_SPLIT.split(text)) {
+            StringBuilder cleaned = new StringBuilder(sentence.length());
+            for (int i = 0; i < sentence.length(); i++) {
+                char c = sentence.charAt(i);
+                if (Character.isLetter(c) || Character.isWhitespace(c)) {
+                    cleaned.append(Character.toLowerCase(c));
+                }
+            }
+            sentences.add(WORD_SPLIT.split(cleaned.toString().trim()));
+        }
+        return sentences;
+    }
+
+    // The current default: DocumentSummarizer.preprocessText with the ASCII Tokenizer
+    @Benchmark
+    public Object tokenizer() throws Throwable {
+        return Summarizers.preprocessText(text);
+    }
+
+    // Language mode: Unicode classes, abbreviations and initials, original sentence text kept
+    @Benchmark
+    public Object segmenter() throws Throwable {
+        return Summarizers.segment(text, english);
+    }
+
+    // loadStopWords used to build a new HashSet on every call
+    @Benchmark
+    public Set<String> stopWordsRebuilt() {
+        return new HashSet<>(Arrays.asList(
+                "a", "an", "the", "and", "or", "but", "if", "while",
+                "with", "is", "in", "at", "of", "on", "for", "to", "from"));
+    }
+
+    @Benchmark
+    public Set<String> stopWordsShared() throws Throwable {
+        return Summarizers.loadStopWords();
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One benchmark per DocumentSummarizer stage, each fed the output of the stages before it:
+// preprocessText -> computeWordFrequency -> scoreSentences -> rankAll -> summary slice.
+// rankAll plus the slice is what generateSummary used to do in one step. Sizes above 16MB are
+// opt-in, e.g. -p size=256MB,1GB with -jvmArgsAppend -Xmx16g.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsummarizer.cache.entries=0"})
+public class StageBenchmarks {
+
+    @Param({"1KB", "64KB", "1MB", "16MB"})
+    public String size;
+
+    private String text;
+    private Set<String> stopWords;
+    private Object statistics;
+    private Object wordFrequency;
+    private double[] scores;
+    private Object rankedSummary;
+
+    @Setup(Level.Trial)
+    public void prepare() throws Throwable {
+        text = Corpora.text(size);
+        stopWords = Summarizers.loadStopWords();
+        statistics = Summarizers.preprocessTextDetached(text);
+        wordFrequency = Summarizers.computeWordFrequency(statistics, stopWords);
+        scores = Summarizers.scoreSentences(statistics, wordFrequency);
+        rankedSummary = Summarizers.rankedSummary(statistics, Summarizers.rankAll(scores));
+    }
+
+    @Benchmark
+    public Object preprocessText() throws Throwable {
+        return Summarizers.preprocessText(text);
+    }
+
+    @Benchmark
+    public Object computeWordFrequency() throws Throwable {
+        return Summarizers.computeWordFrequency(statistics, stopWords);
+    }
+
+    @Benchmark
+    public double[] scoreSentences() throws Throwable {
+        return Summarizers.scoreSentences(statistics, wordFrequency);
+    }
+
+    @Benchmark
+    public int[] rankSentences() throws Throwable {
+        return Summarizers.rankAll(scores);
+    }
+
+    @Benchmark
+    public String sliceSummary() throws Throwable {
+        return Summarizers.sliceSummary(rankedSummary, 5);
+    }
+}
@@ -0,0 +1,116 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to first summary of the command line, per format: every invocation starts a fresh JVM
+// running DocumentSummarizer on a 1KB document and stops the clock when the summary is printed.
+// classData=jdk is a plain start (the JDK's own default CDS archive only); appcds first dumps an
+// archive from a --cds-training run, as the summarize launcher does, and starts with it. AppCDS
+// only archives classes from jar files, so run this from benchmarks.jar, not a class directory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmarks {
+
+    @Param({"txt", "docx", "pdf"})
+    public String format;
+
+    @Param({"jdk", "appcds"})
+    public String classData;
+
+    private final List<String> command = new ArrayList<>();
+    private Path archive;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void prepare() throws Throwable {
+        String file = Corpora.file(format, "1KB").toString();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+
+        command.clear();
+        command.add(java);
+        if (classData.equals("appcds")) {
+            Path directory = Files.createTempDirectory("summarizer-startup");
+            archive = directory.resolve("summarizer.jsa");
+            Process training = new ProcessBuilder(java, "-XX:ArchiveClassesAtExit=" + archive,
+                    "-cp", classPath, "DocumentSummarizer", "--cds-training")
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (training.waitFor() != 0 || !Files.exists(archive)) {
+                throw new IllegalStateException("Could not dump the class data archive");
+            }
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        // The summary cache would skip the work after the first invocation
+        command.add("-Dsummarizer.cache.disk=false");
+        command.add("-cp");
+        command.add(classPath);
+        command.add("DocumentSummarizer");
+        command.add(file);
+    }
+
+    @Benchmark
+    public String timeToFirstSummary() throws IOException {
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.equals("Summary:")) {
+                String summary = out.readLine();
+                if (summary != null) {
+                    return summary;
+                }
+                break;
+            }
+        }
+        throw new IllegalStateException("No summary printed by " + String.join(" ", command));
+    }
+
+    // JVM shutdown is not part of the time to first summary
+    @TearDown(Level.Invocation)
+    public void awaitExit() throws IOException, InterruptedException {
+        if (process != null) {
+            process.getInputStream().transferTo(OutputStream.nullOutputStream());
+            process.waitFor();
+            process = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteArchive() throws IOException {
+        if (archive != null) {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(archive.getParent());
+            archive = null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Set;
+
+// Handles on the summarizer stages. The summarizers live in the default package, which named
+// packages (and JMH's generated code) cannot import, so every stage is reached through a
+// private lookup. The handles are static final, so the JIT inlines them like direct calls.
+final class Summarizers {
+
+    private static final Class<?> DOCUMENT_SUMMARIZER = load("DocumentSummarizer");
+    private static final Class<?> APP = load("TextSummarizerAppWithLineWrap");
+    private static final Class<?> DOCUMENT_STATISTICS = load("DocumentStatistics");
+    private static final Class<?> TERM_DICTIONARY = load("TermDictionary");
+    private static final Class<?> TOP_SENTENCES = load("TopSentences");
+    private static final Class<?> RANKED_SUMMARY = load("RankedSummary");
+    private static final Class<?> LANGUAGE = load("Language");
+    private static final Class<?> SENTENCE_SEGMENTER = load("SentenceSegmenter");
+
+    private static final MethodHandle READ_FILE = find(DOCUMENT_SUMMARIZER, "readFile", String.class);
+    private static final MethodHandle READ_STATISTICS = find(DOCUMENT_SUMMARIZER, "readStatistics", String.class);
+    private static final MethodHandle PREPROCESS_TEXT = find(DOCUMENT_SUMMARIZER, "preprocessText", String.class);
+    private static final MethodHandle LOAD_STOP_WORDS = find(DOCUMENT_SUMMARIZER, "loadStopWords");
+    private static final MethodHandle COMPUTE_WORD_FREQUENCY = find(DOCUMENT_SUMMARIZER, "computeWordFrequency",
+            DOCUMENT_STATISTICS, Set.class);
+    private static final MethodHandle SCORE_SENTENCES = find(DOCUMENT_SUMMARIZER, "scoreSentences",
+            DOCUMENT_STATISTICS, TERM_DICTIONARY);
+    private static final MethodHandle RANK_ALL = find(TOP_SENTENCES, "rankAll", double[].class, int.class);
+    private static final MethodHandle SLICE_SUMMARY = find(DOCUMENT_SUMMARIZER, "summarize", RANKED_SUMMARY, int.class);
+    private static final MethodHandle SUMMARIZE_TEXT = find(DOCUMENT_SUMMARIZER, "summarizeText", String.class, int.class);
+    private static final MethodHandle APP_SUMMARIZE = find(APP, "summarize", String.class, int.class);
+    private static final MethodHandle LANGUAGE_FOR_CODE = find(LANGUAGE, "forCode", String.class);
+    private static final MethodHandle SEGMENT = find(SENTENCE_SEGMENTER, "segment", CharSequence.class, LANGUAGE);
+
+    private static final MethodHandle NEW_APP = constructor(APP);
+    private static final MethodHandle NEW_STATISTICS = constructor(DOCUMENT_STATISTICS);
+    private static final MethodHandle NEW_RANKED_SUMMARY = constructor(RANKED_SUMMARY, List.class, int[].class);
+    private static final MethodHandle MERGE = find(DOCUMENT_STATISTICS, "merge", DOCUMENT_STATISTICS);
+    private static final MethodHandle SENTENCES = getter(DOCUMENT_STATISTICS, "sentences");
+
+    private Summarizers() {
+    }
+
+    static String readFile(String filename) throws Throwable {
+        return (String) READ_FILE.invokeExact(filename);
+    }
+
+    static Object readStatistics(String filename) throws Throwable {
+        return READ_STATISTICS.invokeExact(filename);
+    }
+
+    static Object preprocessText(String text) throws Throwable {
+        return PREPROCESS_TEXT.invokeExact(text);
+    }
+
+    // Preprocessed statistics with a dictionary of their own, safe to keep across invocations
+    // (small texts are otherwise tokenized into the thread's reusable dictionary)
+    static Object preprocessTextDetached(String text) throws Throwable {
+        Object statistics = NEW_STATISTICS.invokeExact();
+        MERGE.invokeExact(statistics, preprocessText(text));
+        return statistics;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Set<String> loadStopWords() throws Throwable {
+        return (Set<String>) LOAD_STOP_WORDS.invokeExact();
+    }
+
+    static Object computeWordFrequency(Object statistics, Set<String> stopWords) throws Throwable {
+        return COMPUTE_WORD_FREQUENCY.invokeExact(statistics, stopWords);
+    }
+
+    static double[] scoreSentences(Object statistics, Object wordFrequency) throws Throwable {
+        return (double[]) SCORE_SENTENCES.invokeExact(statistics, wordFrequency);
+    }
+
+    static int[] rankAll(double[] scores) throws Throwable {
+        return (int[]) RANK_ALL.invokeExact(scores, scores.length);
+    }
+
+    static Object rankedSummary(Object statistics, int[] ranking) throws Throwable {
+        return NEW_RANKED_SUMMARY.invokeExact(sentences(statistics), ranking);
+    }
+
+    static String sliceSummary(Object rankedSummary, int sentences) throws Throwable {
+        return (String) SLICE_SUMMARY.invokeExact(rankedSummary, sentences);
+    }
+
+    static String summarizeText(String text, int sentences) throws Throwable {
+        return (String) SUMMARIZE_TEXT.invokeExact(text, sentences);
+    }
+
+    static Object language(String code) throws Throwable {
+        return LANGUAGE_FOR_CODE.invokeExact(code);
+    }
+
+    static Object segment(String text, Object language) throws Throwable {
+        return SEGMENT.invokeExact((CharSequence) text, language);
+    }
+
+    static Object newApp() throws Throwable {
+        return NEW_APP.invokeExact();
+    }
+
+    static String appSummarize(Object app, String text, int sentences) throws Throwable {
+        return (String) APP_SUMMARIZE.invokeExact(app, text, sentences);
+    }
+
+    static List<?> sentences(Object statistics) throws Throwable {
+        return (List<?>) SENTENCES.invokeExact(statistics);
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Summarizer class " + name + " is not on the class path", e);
+        }
+    }
+
+    private static MethodHandles.Lookup lookup(Class<?> type) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    }
+
+    // Handle with every reference type erased to Object, so callers can use invokeExact without
+    // naming the default-package types
+    private static MethodHandle find(Class<?> owner, String name, Class<?>... parameterTypes) {
+        try {
+            return erase(lookup(owner).unreflect(owner.getDeclaredMethod(name, parameterTypes)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No " + owner.getName() + "." + name + " to benchmark", e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameterTypes) {
+        try {
+            return erase(lookup(owner).unreflectConstructor(owner.getDeclaredConstructor(parameterTypes)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No " + owner.getName() + " constructor to benchmark", e);
+        }
+    }
+
+    private static MethodHandle getter(Class<?> owner, String name) {
+        try {
+            return erase(lookup(owner).unreflectGetter(owner.getDeclaredField(name)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No " + owner.getName() + "." + name + " to benchmark", e);
+        }
+    }
+
+    // Summarizer types become Object; JDK types (String, Set, List, arrays, primitives) stay
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type();
+        MethodType erased = type;
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isSummarizerType(type.parameterType(i))) {
+                erased = erased.changeParameterType(i, Object.class);
+            }
+        }
+        if (isSummarizerType(type.returnType())) {
+            erased = erased.changeReturnType(Object.class);
+        }
+        return handle.asType(erased);
+    }
+
+    private static boolean isSummarizerType(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getPackageName().isEmpty();
+    }
+}
@@ -0,0 +1,241 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Summarizes a whole corpus in one JVM. Every document runs on its own virtual thread; the
+// CPU-heavy stages are gated by semaphores, one for PDFBox/POI parsing and one for tokenizing
+// and scoring, so thousands of queued documents do not oversubscribe the cores. One JSON line
+// is written per document as soon as it finishes.
+//
+// Usage: DocumentSummarizer --batch <directory | @file-list> [--sentences N]
+//            [--parse-threads N] [--threads N] [--scoring frequency|textrank] [--idf corpus.idf]
+//            [--diverse] [--output results.jsonl]
+public class BatchSummarizer {
+
+    private final int summaryLength;
+    private final Semaphore parsePermits; // PDFBox and POI extraction
+    private final Semaphore cpuPermits;   // Text ingestion, tokenizing and scoring
+    private final Scoring scoring;        // Shared by every document, including any IDF index
+    private final boolean diverse;        // Skip near-duplicate sentences, see DiverseSelection
+    private final Writer output;
+    private final ReentrantLock outputLock = new ReentrantLock(); // Not synchronized: avoids pinning virtual threads
+    private final AtomicInteger failures = new AtomicInteger();
+
+    BatchSummarizer(int summaryLength, int parseThreads, int cpuThreads, Scoring scoring, boolean diverse,
+                    Writer output) {
+        if (parseThreads < 1 || cpuThreads < 1) {
+            throw new IllegalArgumentException("Thread counts must be at least 1: " + parseThreads + ", " + cpuThreads);
+        }
+        this.summaryLength = summaryLength;
+        this.parsePermits = new Semaphore(parseThreads);
+        this.cpuPermits = new Semaphore(cpuThreads);
+        this.scoring = scoring;
+        this.diverse = diverse;
+        this.output = output;
+    }
+
+    // Entry point for DocumentSummarizer --batch; returns the process exit code
+    static int run(String[] args) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        String source = null;
+        String outputFile = null;
+        String idfFile = null;
+        String scoringMode = System.getProperty("summarizer.scoring", "frequency");
+        boolean diverse = DiverseSelection.configured();
+        int summaryLength = 5;
+        int parseThreads = Math.max(1, cores / 2);
+        int cpuThreads = cores;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--sentences":
+                        summaryLength = Integer.parseInt(args[++i]);
+                        break;
+                    case "--parse-threads":
+                        parseThreads = atLeastOne(args[++i]);
+                        break;
+                    case "--threads":
+                        cpuThreads = atLeastOne(args[++i]);
+                        break;
+                    case "--output":
+                        outputFile = args[++i];
+                        break;
+                    case "--scoring":
+                        scoringMode = args[++i];
+                        break;
+                    case "--idf":
+                        idfFile = args[++i];
+                        break;
+                    case "--diverse":
+                        diverse = true;
+                        break;
+                    default:
+                        // A misspelled flag or a second source is an error, not the corpus
+                        if (args[i].startsWith("--") || source != null) {
+                            throw new IllegalArgumentException(args[i]);
+                        }
+                        source = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            source = null;
+        }
+        if (source == null) {
+            System.err.println("Usage: DocumentSummarizer --batch <directory | @file-list> [--sentences N]"
+                    + " [--parse-threads N] [--threads N] [--scoring frequency|textrank] [--idf corpus.idf]"
+                    + " [--diverse] [--output results.jsonl]");
+            return 2;
+        }
+
+        try {
+            List<Path> files = listFiles(source);
+            IdfIndex idf = idfFile == null ? IdfIndex.configured() : IdfIndex.open(Paths.get(idfFile));
+            Scoring scoring = Scoring.of(scoringMode, idf);
+            Writer writer = outputFile == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8);
+            try (writer) {
+                BatchSummarizer batch = new BatchSummarizer(summaryLength, parseThreads, cpuThreads, scoring, diverse, writer);
+                long start = System.nanoTime();
+                batch.summarizeAll(files);
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                System.err.println("Summarized " + files.size() + " documents (" + batch.failures.get()
+                        + " failed) in " + elapsed + " ms; cache " + SummaryCache.shared().stats());
+                System.err.println(StageMetrics.report()); // Where the time went, per stage
+                return batch.failures.get() == 0 ? 0 : 1;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // A permit count; zero permits would block every document forever
+    private static int atLeastOne(String value) {
+        int count = Integer.parseInt(value);
+        if (count < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + value);
+        }
+        return count;
+    }
+
+    // A directory is searched recursively for supported files; @path names a file with one path per line
+    static List<Path> listFiles(String source) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (source.startsWith("@")) {
+            for (String line : Files.readAllLines(Paths.get(source.substring(1)), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    files.add(Paths.get(line));
+                }
+            }
+            return files;
+        }
+        try (Stream<Path> paths = Files.walk(Paths.get(source))) {
+            paths.filter(Files::isRegularFile)
+                 .filter(path -> DocumentSummarizer.SUPPORTED_TYPES.contains(
+                         DocumentSummarizer.fileType(path.getFileName().toString())))
+                 .sorted()
+                 .forEach(files::add);
+        }
+        return files;
+    }
+
+    void summarizeAll(List<Path> files) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                executor.submit(() -> summarizeOne(file));
+            }
+        } // close() waits for every document
+    }
+
+    private void summarizeOne(Path file) {
+        String filename = file.toString();
+        String type = DocumentSummarizer.fileType(filename);
+        long start = System.nanoTime();
+        long readNanos = 0;
+        long summarizeNanos = 0;
+        int sentences = 0;
+        String summary = null;
+        String error = null;
+
+        try {
+            // Documents seen in an earlier run come straight from the summary cache. Otherwise
+            // plain text is memory-mapped and tokenized on the CPU permits, and PDF, DOC and DOCX
+            // extraction (PDFBox/POI) runs on the parse permits
+            SummaryCache cache = SummaryCache.shared();
+            String key = SummaryCache.fileKey(scoring.cacheVariant(), file);
+            RankedSummary ranked = cache.get(key);
+            if (ranked == null) {
+                // One extraction thread per parse permit, so the permits bound the PDFBox copies too
+                Semaphore permits = type.equals(".txt") ? cpuPermits : parsePermits;
+                DocumentStatistics statistics = withPermit(permits, () -> DocumentSummarizer.readStatistics(filename, 1));
+                readNanos = System.nanoTime() - start;
+
+                long rankStart = System.nanoTime();
+                ranked = withPermit(cpuPermits, () -> DocumentSummarizer.rank(statistics, scoring));
+                cache.put(key, ranked);
+                summarizeNanos = System.nanoTime() - rankStart;
+            } else {
+                readNanos = System.nanoTime() - start;
+            }
+
+            sentences = ranked.sentences.size();
+            StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.SELECT);
+            summary = sentences == 0 ? "" : String.join(" ", ranked.select(summaryLength, diverse));
+            timer.end();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        long totalNanos = System.nanoTime() - start;
+        writeLine("{\"file\":" + Json.quote(filename)
+                + ",\"sentences\":" + sentences
+                + ",\"readMillis\":" + readNanos / 1_000_000
+                + ",\"summarizeMillis\":" + summarizeNanos / 1_000_000
+                + ",\"totalMillis\":" + totalNanos / 1_000_000
+                + ",\"summary\":" + Json.quote(summary)
+                + ",\"error\":" + Json.quote(error) + "}");
+    }
+
+    private interface Stage<T> {
+        T run() throws Exception;
+    }
+
+    private static <T> T withPermit(Semaphore permits, Stage<T> stage) throws Exception {
+        permits.acquire();
+        try {
+            return stage.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void writeLine(String line) {
+        outputLock.lock();
+        try {
+            output.write(line);
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write result: " + e.getMessage());
+        } finally {
+            outputLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+// Redundancy-aware summary selection. Sentences are taken from the ranking best first, but a
+// candidate is skipped when it looks like a near-duplicate of a sentence already chosen. Instead
+// of comparing every candidate with every chosen sentence (MMR), each sentence gets a MinHash
+// signature of its word set and the signature is cut into LSH bands: two sentences collide when
+// any band matches, which for BANDS x ROWS = 8 x 4 happens with probability 1 - (1 - J^4)^8 for
+// word-set Jaccard similarity J (about 0.98 at J = 0.8, 0.06 at J = 0.3). A candidate costs one
+// signature and BANDS set lookups, so selection stays linear in the sentences it has to visit.
+//
+// Select it with -Dsummarizer.selection=diverse, "--batch ... --diverse", or in the app.
+final class DiverseSelection {
+
+    static final int BANDS = 8;
+    static final int ROWS = 4;
+
+    private static final int HASHES = BANDS * ROWS;
+    private static final int MIN_WORD_LENGTH = 3; // Shorter words are mostly function words
+    private static final int[] SEEDS = seeds();
+
+    private DiverseSelection() {
+    }
+
+    // Whether -Dsummarizer.selection asks for diverse summaries
+    static boolean configured() {
+        return "diverse".equalsIgnoreCase(System.getProperty("summarizer.selection", "top"));
+    }
+
+    // Up to N sentence indices, in original order, taken from the ranking (best first) while
+    // skipping near-duplicates of sentences already chosen. Fewer than N are returned when the
+    // document does not have N distinct enough sentences.
+    static int[] select(int[] ranking, IntFunction<? extends CharSequence> sentence, int topN) {
+        int k = Math.min(Math.max(topN, 0), ranking.length);
+        int[] chosen = new int[k];
+        int count = 0;
+        Set<Long> buckets = new HashSet<>();
+        int[] signature = new int[HASHES];
+        long[] bands = new long[BANDS];
+        for (int r = 0; r < ranking.length && count < k; r++) {
+            if (!signature(sentence.apply(ranking[r]), signature)) {
+                // No words to compare by, so it cannot repeat anything
+                chosen[count++] = ranking[r];
+                continue;
+            }
+            boolean repeated = false;
+            for (int band = 0; band < BANDS; band++) {
+                bands[band] = bandKey(signature, band);
+                repeated |= buckets.contains(bands[band]);
+            }
+            if (repeated) {
+                continue;
+            }
+            for (long key : bands) {
+                buckets.add(key);
+            }
+            chosen[count++] = ranking[r];
+        }
+        int[] indices = Arrays.copyOf(chosen, count);
+        Arrays.sort(indices);
+        return indices;
+    }
+
+    // MinHash signature of the sentence's distinct words (case-insensitive letter/digit runs);
+    // returns false if the sentence has no word long enough to count
+    static boolean signature(CharSequence sentence, int[] signature) {
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        boolean any = false;
+        int length = sentence.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(sentence.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            int hash = 0;
+            while (i < length && Character.isLetterOrDigit(sentence.charAt(i))) {
+                hash = 31 * hash + Character.toLowerCase(sentence.charAt(i));
+                i++;
+            }
+            if (i - start < MIN_WORD_LENGTH) {
+                continue;
+            }
+            any = true;
+            // Repeated words give the same values, so this is a signature of the word set
+            for (int h = 0; h < HASHES; h++) {
+                int value = mix(hash ^ SEEDS[h]);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return any;
+    }
+
+    // ROWS signature values of one band folded into a key; the band number keeps bands apart
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[row];
+        }
+        return key ^ (key >>> 29);
+    }
+
+    // Murmur3 finalizer: a cheap permutation of the int range, one per seed
+    private static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x85ebca6b;
+        value ^= value >>> 13;
+        value *= 0xc2b2ae35;
+        value ^= value >>> 16;
+        return value;
+    }
+
+    // Fixed seeds, so a document gets the same summary in every run
+    private static int[] seeds() {
+        int[] seeds = new int[HASHES];
+        int state = 0x2545F491;
+        for (int h = 0; h < HASHES; h++) {
+            state = mix(state + 0x9E3779B9);
+            seeds[h] = state;
+        }
+        return seeds;
+    }
+}
@@ -0,0 +1,597 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A document parsed, tokenized and scored once, saved in a compact binary file and memory-mapped
+// afterwards. Any summary length is a slice of the stored ranking, and a keyword-focused summary
+// only walks the keywords' postings, so neither touches PDFBox or POI or re-tokenizes anything.
+// Everything is read with absolute gets on the shared read-only mapping; sentence text is only
+// decoded for the sentences a summary actually returns.
+//
+// Layout (big-endian): magic, version, sentence count S, term count T, token count K,
+//                      posting count P, sentence text bytes, language code bytes L,
+//                      language code (L bytes, none for the original rules), double[S] scores, int[S] ranking (best first),
+//                      int[S + 1] text offsets, int[S + 1] token offsets, int[K] term IDs,
+//                      int[T] term frequencies, int[T + 1] posting offsets, int[P] sentences,
+//                      int[T + 1] term name offsets, term names, sentence text (UTF-8).
+// Term IDs are positions in the term list, sorted by UTF-8 bytes (TermNames), so a keyword is
+// found by binary search as in IdfIndex; each term's postings list every sentence containing it
+// once, in document order. Keywords are read with the rules the index was built with, so an
+// index built with -Dsummarizer.language answers in that language whatever the querying JVM sets.
+//
+// Build: DocumentSummarizer --index <document> [--output document.dix]
+// Query: DocumentSummarizer --query <document | document.dix> [--sentences N] [--keywords a,b] [--diverse]
+public final class DocumentIndex {
+
+    private static final int MAGIC = 0x44495831; // "DIX1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+
+    private static final Map<Path, DocumentIndex> OPEN = new ConcurrentHashMap<>();
+
+    // Indexes built without the disk tier, by key, most recently used last
+    private static final int MAX_TEMPORARY = 16;
+    private static final ReentrantLock TEMPORARY_LOCK = new ReentrantLock();
+    private static final Map<String, DocumentIndex> TEMPORARY = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DocumentIndex> eldest) {
+            return size() > MAX_TEMPORARY;
+        }
+    };
+
+    private final MappedByteBuffer buffer;
+    private final Language language; // Rules the terms were read with; null for the original ones
+    private final int sentenceCount;
+    private final int termCount;
+    private final int scoresStart;
+    private final int rankingStart;
+    private final int textOffsetsStart;
+    private final int tokenOffsetsStart;
+    private final int tokensStart;
+    private final int frequenciesStart;
+    private final int postingOffsetsStart;
+    private final int postingsStart;
+    private final int nameOffsetsStart;
+    private final int namesStart;
+    private final int textStart;
+
+    private DocumentIndex(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a document index");
+        }
+        sentenceCount = buffer.getInt(8);
+        termCount = buffer.getInt(12);
+        int tokenCount = buffer.getInt(16);
+        int postingCount = buffer.getInt(20);
+        int textBytes = buffer.getInt(24);
+        int languageBytes = buffer.getInt(28);
+        if (languageBytes < 0 || HEADER_BYTES + (long) languageBytes > buffer.capacity()) {
+            throw new IOException("Truncated document index");
+        }
+        if (languageBytes == 0) {
+            language = null;
+        } else {
+            byte[] code = new byte[languageBytes];
+            buffer.get(HEADER_BYTES, code);
+            language = Language.forCode(new String(code, StandardCharsets.UTF_8));
+            if (language == null) {
+                throw new IOException("Document index in an unknown language: " + new String(code, StandardCharsets.UTF_8));
+            }
+        }
+        long position = HEADER_BYTES + languageBytes;
+        scoresStart = (int) position;
+        rankingStart = (int) (position += sentenceCount * 8L);
+        textOffsetsStart = (int) (position += sentenceCount * 4L);
+        tokenOffsetsStart = (int) (position += (sentenceCount + 1) * 4L);
+        tokensStart = (int) (position += (sentenceCount + 1) * 4L);
+        frequenciesStart = (int) (position += tokenCount * 4L);
+        postingOffsetsStart = (int) (position += termCount * 4L);
+        postingsStart = (int) (position += (termCount + 1) * 4L);
+        nameOffsetsStart = (int) (position += postingCount * 4L);
+        namesStart = (int) (position += (termCount + 1) * 4L);
+        if (position > buffer.capacity()) {
+            throw new IOException("Truncated document index");
+        }
+        textStart = (int) (position += buffer.getInt(nameOffsetsStart + termCount * 4));
+        if (position + textBytes > buffer.capacity()) {
+            throw new IOException("Truncated document index");
+        }
+    }
+
+    // The index in the file, mapped once per process and shared by every caller
+    public static DocumentIndex open(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        DocumentIndex index = OPEN.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            return OPEN.computeIfAbsent(key, path -> {
+                try {
+                    return map(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static DocumentIndex map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Document index larger than 2GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new DocumentIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Index of a document, built on first use and keyed on the document's bytes and the scoring
+    // mode. The index holds the document's text, so it is only kept on disk when the summary
+    // cache's disk tier is on: then it lives in the tier's index/ directory under the tier's
+    // bounds, and later calls only hash the file and map the index. Otherwise it is built into a
+    // private temporary file that is deleted once mapped, and reused by this process only.
+    public static DocumentIndex forFile(String filename) throws IOException {
+        Scoring scoring = Scoring.configured();
+        String key = SummaryCache.fileKey(scoring.cacheVariant() + "/index/v" + VERSION, Paths.get(filename));
+        SummaryCache cache = SummaryCache.shared();
+        if (cache.directory() == null) {
+            return buildTemporary(key, filename, scoring);
+        }
+        Path file = cache.directory().resolve("index").resolve(key + ".dix");
+        if (Files.exists(file)) {
+            SummaryCache.touch(file);
+        } else {
+            build(DocumentSummarizer.readStatistics(filename), scoring, file);
+            cache.stored(file);
+        }
+        return open(file);
+    }
+
+    private static DocumentIndex buildTemporary(String key, String filename, Scoring scoring) throws IOException {
+        TEMPORARY_LOCK.lock();
+        try {
+            DocumentIndex index = TEMPORARY.get(key);
+            if (index != null) {
+                return index;
+            }
+        } finally {
+            TEMPORARY_LOCK.unlock();
+        }
+        Path file = Files.createTempFile("document-summarizer", ".dix"); // Owner-only where POSIX
+        DocumentIndex index;
+        try {
+            build(DocumentSummarizer.readStatistics(filename), scoring, file);
+            index = map(file);
+        } finally {
+            // The mapping outlives the file where the platform allows it
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+        TEMPORARY_LOCK.lock();
+        try {
+            TEMPORARY.put(key, index);
+        } finally {
+            TEMPORARY_LOCK.unlock();
+        }
+        return index;
+    }
+
+    public int sentenceCount() {
+        return sentenceCount;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    // The stored sentences and full ranking; take any summary length from it
+    RankedSummary ranked() {
+        int[] ranking = new int[sentenceCount];
+        for (int i = 0; i < sentenceCount; i++) {
+            ranking[i] = buffer.getInt(rankingStart + i * 4);
+        }
+        return new RankedSummary(new Sentences(), ranking);
+    }
+
+    // Ranking biased towards the keywords: sentences containing more of them come first, ties
+    // broken by the stored score and then document order; sentences without any keyword follow
+    // in their stored order. Only the keywords' postings are visited to find the matches.
+    RankedSummary focused(Collection<String> keywords) {
+        int[] matches = new int[sentenceCount];
+        int[] seen = new int[sentenceCount]; // Keyword number + 1 that last matched the sentence
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        int keywordNumber = 0;
+        for (String keyword : keywords) {
+            for (String term : keywordTerms(keyword)) {
+                keywordNumber++;
+                // The last word of a sentence keeps its period in the original rules, so both
+                // forms are the same keyword; the segmenter never keeps it
+                int[] ids = language == null ? new int[] {find(term), find(term + ".")} : new int[] {find(term)};
+                for (int id : ids) {
+                    if (id < 0) {
+                        continue;
+                    }
+                    int end = buffer.getInt(postingOffsetsStart + (id + 1) * 4);
+                    for (int p = buffer.getInt(postingOffsetsStart + id * 4); p < end; p++) {
+                        int sentence = buffer.getInt(postingsStart + p * 4);
+                        if (seen[sentence] == keywordNumber) {
+                            continue;
+                        }
+                        seen[sentence] = keywordNumber;
+                        if (matches[sentence]++ == 0) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = sentence;
+                        }
+                    }
+                }
+            }
+        }
+
+        Integer[] matched = new Integer[touchedCount];
+        for (int i = 0; i < touchedCount; i++) {
+            matched[i] = touched[i];
+        }
+        Arrays.sort(matched, (a, b) -> {
+            if (matches[a] != matches[b]) {
+                return Integer.compare(matches[b], matches[a]);
+            }
+            int order = Double.compare(score(b), score(a));
+            return order != 0 ? order : Integer.compare(a, b);
+        });
+        int[] ranking = new int[sentenceCount];
+        int count = 0;
+        for (Integer sentence : matched) {
+            ranking[count++] = sentence;
+        }
+        for (int i = 0; i < sentenceCount; i++) {
+            int sentence = buffer.getInt(rankingStart + i * 4);
+            if (matches[sentence] == 0) {
+                ranking[count++] = sentence;
+            }
+        }
+        return new RankedSummary(new Sentences(), ranking);
+    }
+
+    double score(int sentence) {
+        return buffer.getDouble(scoresStart + sentence * 8);
+    }
+
+    String sentence(int sentence) {
+        int start = buffer.getInt(textOffsetsStart + sentence * 4);
+        byte[] bytes = new byte[buffer.getInt(textOffsetsStart + (sentence + 1) * 4) - start];
+        buffer.get(textStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Term IDs of a sentence's words, in order
+    int[] sentenceTerms(int sentence) {
+        int start = buffer.getInt(tokenOffsetsStart + sentence * 4);
+        int[] terms = new int[buffer.getInt(tokenOffsetsStart + (sentence + 1) * 4) - start];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = buffer.getInt(tokensStart + (start + i) * 4);
+        }
+        return terms;
+    }
+
+    // Occurrences of the term in the document
+    int frequency(int term) {
+        return buffer.getInt(frequenciesStart + term * 4);
+    }
+
+    // Term ID of a normalized word, or -1 if the document does not contain it
+    int find(CharSequence term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = compare(middle, term);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int id, CharSequence term) {
+        int start = namesStart + buffer.getInt(nameOffsetsStart + id * 4);
+        int end = namesStart + buffer.getInt(nameOffsetsStart + (id + 1) * 4);
+        return TermNames.compare(buffer, start, end, term);
+    }
+
+    // A keyword's terms in the index's rules: one normalized word for the original rules, the
+    // segmenter's words otherwise (French "l'hôtel" is "l", "hôtel"). Each is its own keyword.
+    private List<String> keywordTerms(String keyword) {
+        if (language == null) {
+            String term = normalize(keyword);
+            return term.isEmpty() ? List.of() : List.of(term);
+        }
+        DocumentStatistics statistics = SentenceSegmenter.segment(keyword, language);
+        List<String> terms = new ArrayList<>();
+        for (int[] sentenceTerms : statistics.sentenceTerms) {
+            for (int term : sentenceTerms) {
+                terms.add(statistics.dictionary.term(term));
+            }
+        }
+        return terms;
+    }
+
+    // A keyword the way Tokenizer.tokenizeNormalized reads words: lowercase, [a-z0-9] only
+    static String normalize(String keyword) {
+        StringBuilder term = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = Character.toLowerCase(keyword.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                term.append(c);
+            }
+        }
+        return term.toString();
+    }
+
+    // Sentence text decoded from the mapping on access
+    private final class Sentences extends AbstractList<String> {
+        @Override
+        public String get(int index) {
+            return sentence(index);
+        }
+
+        @Override
+        public int size() {
+            return sentenceCount;
+        }
+    }
+
+    // Score a tokenized document and write its index to output
+    static void build(DocumentStatistics statistics, Scoring scoring, Path output) throws IOException {
+        int sentences = statistics.sentences.size();
+        double[] scores = DocumentSummarizer.score(statistics, scoring);
+        int[] ranking = TopSentences.rankAll(scores, sentences);
+
+        // Renumber terms in sorted order
+        int termCount = statistics.dictionary.size();
+        byte[][] names = TermNames.encode(statistics.dictionary);
+        Integer[] order = TermNames.sortedOrder(names);
+        int[] sortedId = new int[termCount];
+        for (int i = 0; i < termCount; i++) {
+            sortedId[order[i]] = i;
+        }
+
+        // Frequencies and postings (distinct sentences per term) in the new numbering
+        int[] frequencies = new int[termCount];
+        int[] postingOffsets = new int[termCount + 1];
+        int[] lastSeen = new int[termCount];
+        int tokenCount = 0;
+        for (int i = 0; i < sentences; i++) {
+            for (int term : statistics.sentenceTerms.get(i)) {
+                int id = sortedId[term];
+                frequencies[id]++;
+                if (lastSeen[id] != i + 1) {
+                    lastSeen[id] = i + 1;
+                    postingOffsets[id + 1]++;
+                }
+                tokenCount++;
+            }
+        }
+        for (int id = 0; id < termCount; id++) {
+            postingOffsets[id + 1] += postingOffsets[id];
+        }
+        int[] postings = new int[postingOffsets[termCount]];
+        int[] fill = Arrays.copyOf(postingOffsets, termCount);
+        Arrays.fill(lastSeen, 0);
+        for (int i = 0; i < sentences; i++) {
+            for (int term : statistics.sentenceTerms.get(i)) {
+                int id = sortedId[term];
+                if (lastSeen[id] != i + 1) {
+                    lastSeen[id] = i + 1;
+                    postings[fill[id]++] = i;
+                }
+            }
+        }
+
+        List<byte[]> text = new ArrayList<>(sentences);
+        long textBytes = 0;
+        for (String sentence : statistics.sentences) {
+            byte[] bytes = sentence.getBytes(StandardCharsets.UTF_8);
+            text.add(bytes);
+            textBytes += bytes.length;
+        }
+        if (textBytes > Integer.MAX_VALUE) {
+            throw new IOException("Document too large to index");
+        }
+
+        Path directory = output.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, output.getFileName().toString(), ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sentences);
+            out.writeInt(termCount);
+            out.writeInt(tokenCount);
+            out.writeInt(postings.length);
+            out.writeInt((int) textBytes);
+            byte[] language = statistics.language == null
+                    ? new byte[0] : statistics.language.code.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(language.length);
+            out.write(language);
+            for (double score : scores) {
+                out.writeDouble(score);
+            }
+            for (int sentence : ranking) {
+                out.writeInt(sentence);
+            }
+            int offset = 0;
+            for (byte[] bytes : text) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            offset = 0;
+            for (int[] terms : statistics.sentenceTerms) {
+                out.writeInt(offset);
+                offset += terms.length;
+            }
+            out.writeInt(offset);
+            for (int[] terms : statistics.sentenceTerms) {
+                for (int term : terms) {
+                    out.writeInt(sortedId[term]);
+                }
+            }
+            for (int frequency : frequencies) {
+                out.writeInt(frequency);
+            }
+            for (int postingOffset : postingOffsets) {
+                out.writeInt(postingOffset);
+            }
+            for (int sentence : postings) {
+                out.writeInt(sentence);
+            }
+            offset = 0;
+            for (int id : order) {
+                out.writeInt(offset);
+                offset += names[id].length;
+            }
+            out.writeInt(offset);
+            for (int id : order) {
+                out.write(names[id]);
+            }
+            for (byte[] bytes : text) {
+                out.write(bytes);
+            }
+        }
+        // Readers only ever see complete indexes
+        try {
+            Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Entry point for DocumentSummarizer --index; returns the process exit code
+    static int runBuild(String[] args) {
+        String source = null;
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--output")) {
+                    output = args[++i];
+                } else if (args[i].startsWith("--") || source != null) {
+                    throw new IllegalArgumentException(args[i]);
+                } else {
+                    source = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            source = null;
+        }
+        if (source == null) {
+            System.err.println("Usage: DocumentSummarizer --index <document> [--output document.dix]");
+            return 2;
+        }
+        if (output == null && SummaryCache.shared().directory() == null) {
+            System.err.println("The index would not be kept: pass --output, or turn on the summary cache's"
+                    + " disk tier with -Dsummarizer.cache.disk=true");
+            return 2;
+        }
+
+        try {
+            long start = System.nanoTime();
+            DocumentIndex index;
+            if (output == null) {
+                index = forFile(source);
+            } else {
+                build(DocumentSummarizer.readStatistics(source), Scoring.configured(), Paths.get(output));
+                index = map(Paths.get(output));
+            }
+            System.err.println("Indexed " + index.sentenceCount() + " sentences, " + index.termCount()
+                    + " terms, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Indexing failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // Entry point for DocumentSummarizer --query; returns the process exit code
+    static int runQuery(String[] args) {
+        String source = null;
+        List<String> keywords = new ArrayList<>();
+        int summaryLength = 5;
+        boolean diverse = DiverseSelection.configured();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--sentences":
+                        summaryLength = Integer.parseInt(args[++i]);
+                        break;
+                    case "--keywords":
+                        keywords.addAll(Arrays.asList(args[++i].split("[,\\s]+")));
+                        break;
+                    case "--diverse":
+                        diverse = true;
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || source != null) {
+                            throw new IllegalArgumentException(args[i]);
+                        }
+                        source = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            source = null;
+        }
+        if (source == null) {
+            System.err.println("Usage: DocumentSummarizer --query <document | document.dix> [--sentences N]"
+                    + " [--keywords a,b] [--diverse]");
+            return 2;
+        }
+
+        try {
+            long start = System.nanoTime();
+            DocumentIndex index = source.endsWith(".dix") ? open(Paths.get(source)) : forFile(source);
+            RankedSummary ranked = keywords.isEmpty() ? index.ranked() : index.focused(keywords);
+            String summary = DocumentSummarizer.summarize(ranked, summaryLength, diverse);
+            System.out.println("Summary:\n" + summary);
+            System.err.println("Answered from " + index.sentenceCount() + " indexed sentences in "
+                    + (System.nanoTime() - start) / 1_000 + " us");
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Query failed: " + e.getMessage());
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Document formats by file extension. A format's reader is created the first time a file with
+// its extension is read, and only the reader's code refers to PDFBox or POI, so their classes
+// are loaded for .pdf, .doc and .docx files only; a plain text summary never touches them.
+//
+// More formats can be plugged in with register(), or without code changes by naming reader
+// classes (with a no-arg constructor) in -Dsummarizer.readers=.rtf=RtfReader,.odt=OdtReader
+final class DocumentReaders {
+
+    interface Reader {
+        // The whole text in one String, as DocumentSummarizer.readFile returns it
+        String readText(String filename) throws IOException;
+
+        // Sentences and term IDs in the format's streaming form, as summarizeFile reads them
+        DocumentStatistics readStatistics(String filename) throws IOException;
+
+        // readStatistics on at most the given number of extraction threads, for callers that
+        // already bound their own parse concurrency (BatchSummarizer). Readers that extract on
+        // the calling thread anyway need not override it.
+        default DocumentStatistics readStatistics(String filename, int threads) throws IOException {
+            return readStatistics(filename);
+        }
+    }
+
+    private static final Map<String, Supplier<? extends Reader>> FACTORIES = new ConcurrentHashMap<>();
+    private static final Map<String, Reader> READERS = new ConcurrentHashMap<>();
+
+    static {
+        // Lambdas rather than constructor references: a reader class is only resolved when its
+        // factory first runs, not when it is registered
+        register(".txt", () -> new TextReader());
+        register(".pdf", () -> new PdfReader());
+        register(".docx", () -> new DocxReader());
+        register(".doc", () -> new DocReader());
+        registerConfigured(System.getProperty("summarizer.readers", ""));
+    }
+
+    private DocumentReaders() {
+    }
+
+    // Add or replace the reader for an extension, given with its dot (".rtf")
+    static void register(String extension, Supplier<? extends Reader> factory) {
+        FACTORIES.put(extension, factory);
+        READERS.remove(extension);
+    }
+
+    // Registered extensions; a live view, so it also sees readers registered later
+    static Set<String> extensions() {
+        return Collections.unmodifiableSet(FACTORIES.keySet());
+    }
+
+    // The reader for a file's extension, created on first use
+    static Reader forFile(String filename) throws IOException {
+        String extension = DocumentSummarizer.fileType(filename);
+        Supplier<? extends Reader> factory = FACTORIES.get(extension);
+        if (factory == null) {
+            throw new IOException("Unsupported file type: " + filename);
+        }
+        return READERS.computeIfAbsent(extension, e -> factory.get());
+    }
+
+    private static void registerConfigured(String readers) {
+        for (String entry : readers.split(",")) {
+            entry = entry.trim();
+            int equals = entry.indexOf('=');
+            if (equals <= 0) {
+                continue;
+            }
+            String extension = entry.substring(0, equals).trim().toLowerCase();
+            String className = entry.substring(equals + 1).trim();
+            register(extension.startsWith(".") ? extension : "." + extension, () -> newReader(className));
+        }
+    }
+
+    private static Reader newReader(String className) {
+        try {
+            return Class.forName(className).asSubclass(Reader.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Cannot create document reader " + className, e);
+        }
+    }
+
+    private static final class TextReader implements Reader {
+        @Override
+        public String readText(String filename) throws IOException {
+            return DocumentSummarizer.readTextFile(filename);
+        }
+
+        @Override
+        public DocumentStatistics readStatistics(String filename) throws IOException {
+            return MappedTextReader.read(filename);
+        }
+    }
+
+    private static final class PdfReader implements Reader {
+        @Override
+        public String readText(String filename) throws IOException {
+            return PdfPageRangeReader.readText(filename);
+        }
+
+        @Override
+        public DocumentStatistics readStatistics(String filename) throws IOException {
+            return PdfPageRangeReader.read(filename);
+        }
+
+        @Override
+        public DocumentStatistics readStatistics(String filename, int threads) throws IOException {
+            return PdfPageRangeReader.read(filename, threads);
+        }
+    }
+
+    private static final class DocxReader implements Reader {
+        @Override
+        public String readText(String filename) throws IOException {
+            return WordStreamReader.readDocxText(filename);
+        }
+
+        @Override
+        public DocumentStatistics readStatistics(String filename) throws IOException {
+            return WordStreamReader.readDocx(filename);
+        }
+    }
+
+    private static final class DocReader implements Reader {
+        @Override
+        public String readText(String filename) throws IOException {
+            return WordStreamReader.readDocText(filename);
+        }
+
+        @Override
+        public DocumentStatistics readStatistics(String filename) throws IOException {
+            return WordStreamReader.readDoc(filename);
+        }
+    }
+}
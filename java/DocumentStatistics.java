@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Tokenized sentences of one document (or one chunk of it): the sentence text used for the
+// summary and, for each sentence, its words as term IDs in the document's dictionary
+class DocumentStatistics {
+
+    final TermDictionary dictionary;
+    final List<String> sentences = new ArrayList<>();
+    final List<int[]> sentenceTerms = new ArrayList<>();
+    Language language; // Set by SentenceSegmenter; null for the original ASCII rules
+
+    DocumentStatistics() {
+        this(new TermDictionary());
+    }
+
+    DocumentStatistics(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    void addSentence(String sentence, int[] terms) {
+        sentences.add(sentence);
+        sentenceTerms.add(terms);
+    }
+
+    // Called by Tokenizer.tokenizeVerbatim with the sentence's [start, end) range in the text.
+    // Subclasses that track offsets override this instead of keeping the text.
+    void addSentence(CharSequence text, int start, int end, int[] terms) {
+        addSentence(text.subSequence(start, end).toString(), terms);
+    }
+
+    // Append the chunk that directly follows this one, rewriting its term IDs into our dictionary
+    void merge(DocumentStatistics next) {
+        int[] remap = dictionary.mergeFrom(next.dictionary);
+        for (int[] terms : next.sentenceTerms) {
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = remap[terms[i]];
+            }
+        }
+        sentences.addAll(next.sentences);
+        sentenceTerms.addAll(next.sentenceTerms);
+    }
+}
@@ -1,61 +1,45 @@
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
+import java.util.Collection;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.apache.pdfbox.pdmodel.*;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.hwpf.HWPFDocument;
-import org.apache.poi.hwpf.extractor.WordExtractor;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
 
 public class DocumentSummarizer {
 
-    // Load stopwords from a file or define them
-    private static Set<String> loadStopWords() {
-        // Example stopwords list
-        String[] stopWordsArray = {
+    // Stopwords of the original rules, built once and shared; language mode uses Language.stopWords
+    private static final Set<String> STOP_WORDS = Set.of(
             "a", "an", "the", "and", "or", "but", "if", "while",
-            "with", "is", "in", "at", "of", "on", "for", "to", "from"
-            // Add more stopwords as needed
-        };
-        return new HashSet<>(Arrays.asList(stopWordsArray));
+            "with", "is", "in", "at", "of", "on", "for", "to", "from");
+
+    static Set<String> loadStopWords() {
+        return STOP_WORDS;
+    }
+
+    // The stopwords matching the rules the statistics were tokenized with
+    private static Set<String> stopWords(DocumentStatistics statistics) {
+        return statistics.language == null ? STOP_WORDS : statistics.language.stopWords;
     }
 
+    // Algorithm variant in summary cache keys; change it whenever scoring or selection changes
+    static final String CACHE_VARIANT = "document/frequency/v1";
+
+    // File extensions handled by readFile; see DocumentReaders for the readers behind them
+    static final Set<String> SUPPORTED_TYPES = DocumentReaders.extensions();
+
     // Method to read text from different file types
     public static String readFile(String filename) {
         String document = "";
-        String filetype = filename.substring(filename.lastIndexOf(".")).toLowerCase();
+
+        if (!SUPPORTED_TYPES.contains(fileType(filename))) {
+            System.out.println("Unsupported file type.");
+            return document;
+        }
 
         try {
-            switch (filetype) {
-                case ".txt":
-                    document = readTextFile(filename);
-                    break;
-                case ".doc":
-                    document = readDocFile(filename);
-                    break;
-                case ".docx":
-                    document = readDocxFile(filename);
-                    break;
-                case ".pdf":
-                    document = readPdfFile(filename);
-                    break;
-                default:
-                    System.out.println("Unsupported file type.");
-            }
+            document = readDocument(filename);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -63,7 +47,22 @@ public class DocumentSummarizer {
         return document;
     }
 
-    private static String readTextFile(String filename) throws IOException {
+    // Same as readFile, but read failures are thrown to the caller instead of printed
+    static String readDocument(String filename) throws IOException {
+        DocumentReaders.Reader reader = DocumentReaders.forFile(filename);
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.READ).bytes(new File(filename).length());
+        String text = reader.readText(filename);
+        timer.end();
+        return text;
+    }
+
+    // Lowercase extension including the dot, or "" if there is none
+    static String fileType(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? "" : filename.substring(dot).toLowerCase();
+    }
+
+    static String readTextFile(String filename) throws IOException {
         StringBuilder content = new StringBuilder();
         BufferedReader reader = new BufferedReader(new FileReader(filename));
         String line;
@@ -74,148 +73,313 @@ public class DocumentSummarizer {
         return content.toString();
     }
 
-    private static String readDocFile(String filename) throws IOException {
-        FileInputStream fis = new FileInputStream(new File(filename));
-        HWPFDocument document = new HWPFDocument(fis);
-        WordExtractor extractor = new WordExtractor(document);
-        String[] paragraphs = extractor.getParagraphText();
-        StringBuilder content = new StringBuilder();
-        for (String para : paragraphs) {
-            content.append(para).append(" ");
+    // Preprocess the text: lowercase, remove punctuation, tokenize into sentences and term IDs.
+    // With -Dsummarizer.language set, the language's segmentation rules are used instead.
+    static DocumentStatistics preprocessText(String text) {
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.PREPROCESS);
+        DocumentStatistics statistics;
+        Language language = Language.configured(text);
+        if (language != null) {
+            statistics = SentenceSegmenter.segment(text, language);
+        } else if (text.length() >= ParallelSummarizer.MIN_PARALLEL_CHARS) {
+            statistics = ParallelSummarizer.common().tokenizeNormalized(text);
+        } else {
+            // The dictionary never escapes a summarization run, so the thread's instance is reused
+            statistics = new DocumentStatistics(TermDictionary.reusable());
+            new Tokenizer(statistics.dictionary).tokenizeNormalized(text, false, statistics);
         }
-        extractor.close();
-        fis.close();
-        return content.toString();
+        timer.end(statistics);
+        return statistics;
     }
 
-    private static String readDocxFile(String filename) throws IOException {
-        FileInputStream fis = new FileInputStream(new File(filename));
-        XWPFDocument document = new XWPFDocument(fis);
-        XWPFWordExtractor extractor = new XWPFWordExtractor(document);
-        String content = extractor.getText();
-        extractor.close();
-        fis.close();
-        return content;
-    }
+    // Compute word frequency excluding stopwords; counts are kept in the term dictionary
+    private static TermDictionary computeWordFrequency(DocumentStatistics statistics, Set<String> stopWords) {
+        TermDictionary wordFrequency = statistics.dictionary;
+        wordFrequency.clearCounts();
 
-    private static String readPdfFile(String filename) throws IOException {
-        PDDocument document = PDDocument.load(new File(filename));
-        PDFTextStripper stripper = new PDFTextStripper();
-        String text = stripper.getText(document);
-        document.close();
-        return text;
+        boolean[] counted = countedTerms(wordFrequency, stopWords);
+        for (int[] terms : statistics.sentenceTerms) {
+            for (int term : terms) {
+                if (counted[term]) {
+                    wordFrequency.increment(term);
+                }
+            }
+        }
+
+        return wordFrequency;
     }
 
-    // Preprocess the text: lowercase, remove punctuation, tokenize into sentences
-    private static List<String> preprocessText(String text) {
-        // Convert to lowercase
-        text = text.toLowerCase();
+    // Which term IDs are counted: short words and stopwords are excluded.
+    // Each stopword is looked up once instead of checking every term against the set.
+    private static boolean[] countedTerms(TermDictionary dictionary, Set<String> stopWords) {
+        boolean[] counted = new boolean[dictionary.size()];
+        for (int id = 0; id < counted.length; id++) {
+            counted[id] = dictionary.termLength(id) > 2;
+        }
+        for (String stopWord : stopWords) {
+            int id = dictionary.find(stopWord);
+            if (id >= 0) {
+                counted[id] = false;
+            }
+        }
+        return counted;
+    }
 
-        // Replace newline characters with space
-        text = text.replaceAll("\\n", " ");
+    // Score sentences based on word frequency, indexed by sentence
+    private static double[] scoreSentences(DocumentStatistics statistics, TermDictionary wordFrequency) {
+        double[] sentenceScores = new double[statistics.sentenceTerms.size()];
 
-        // Remove non-alphabetic characters except periods
-        text = text.replaceAll("[^a-zA-Z0-9\\.\\s]", "");
+        for (int i = 0; i < sentenceScores.length; i++) {
+            int[] terms = statistics.sentenceTerms.get(i);
+            double score = 0.0;
 
-        // Split text into sentences using regex
-        List<String> sentences = new ArrayList<>();
-        Matcher matcher = Pattern.compile("([^\\.]+\\.)").matcher(text);
-        while (matcher.find()) {
-            String sentence = matcher.group(1).trim();
-            if (!sentence.isEmpty()) {
-                sentences.add(sentence);
+            for (int term : terms) {
+                score += wordFrequency.count(term);
             }
+
+            sentenceScores[i] = score / terms.length; // Normalize by sentence length
         }
 
-        return sentences;
+        return sentenceScores;
     }
 
-    // Compute word frequency excluding stopwords
-    private static Map<String, Integer> computeWordFrequency(List<String> sentences, Set<String> stopWords) {
-        Map<String, Integer> wordFrequency = new HashMap<>();
-
-        for (String sentence : sentences) {
-            String[] words = sentence.split("\\s+");
-            for (String word : words) {
-                if (word.length() > 2 && !stopWords.contains(word)) { // Exclude short words and stopwords
-                    wordFrequency.put(word, wordFrequency.getOrDefault(word, 0) + 1);
-                }
+    // TF-IDF weight per term ID: in-document frequency times corpus IDF. Each distinct counted
+    // term is looked up in the index once.
+    private static double[] tfIdfWeights(TermDictionary dictionary, int[] wordFrequency, IdfIndex idf) {
+        double[] weights = new double[wordFrequency.length];
+        for (int term = 0; term < weights.length; term++) {
+            if (wordFrequency[term] > 0) {
+                weights[term] = wordFrequency[term] * idf.idf(dictionary.term(term));
             }
         }
-
-        return wordFrequency;
+        return weights;
     }
 
-    // Score sentences based on word frequency
-    private static Map<Integer, Double> scoreSentences(List<String> sentences, Map<String, Integer> wordFrequency) {
-        Map<Integer, Double> sentenceScores = new HashMap<>();
+    // Score sentences by summed term weights, indexed by sentence
+    private static double[] scoreSentences(DocumentStatistics statistics, double[] termWeights) {
+        double[] sentenceScores = new double[statistics.sentenceTerms.size()];
 
-        for (int i = 0; i < sentences.size(); i++) {
-            String sentence = sentences.get(i);
-            String[] words = sentence.split("\\s+");
+        for (int i = 0; i < sentenceScores.length; i++) {
+            int[] terms = statistics.sentenceTerms.get(i);
             double score = 0.0;
 
-            for (String word : words) {
-                score += wordFrequency.getOrDefault(word, 0);
+            for (int term : terms) {
+                score += termWeights[term];
             }
 
-            sentenceScores.put(i, score / words.length); // Normalize by sentence length
+            sentenceScores[i] = score / terms.length; // Normalize by sentence length
         }
 
         return sentenceScores;
     }
 
-    // Generate summary by selecting top N sentences
-    private static List<String> generateSummary(List<String> sentences, Map<Integer, Double> sentenceScores, int topN) {
-        // Sort sentences by score in descending order
-        List<Map.Entry<Integer, Double>> sortedEntries = new ArrayList<>(sentenceScores.entrySet());
-        sortedEntries.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+    // Main summarization method; the scoring mode comes from system properties, see Scoring
+    public static String summarizeText(String text, int numSentences) {
+        return summarizeText(text, numSentences, Scoring.configured());
+    }
+
+    // Summarize with TF-IDF scoring against the given corpus index, or plain frequencies if it is null
+    public static String summarizeText(String text, int numSentences, IdfIndex idf) {
+        return summarizeText(text, numSentences, Scoring.tfIdf(idf));
+    }
 
-        // Select top N sentences
-        List<Integer> topSentenceIndices = new ArrayList<>();
-        for (int i = 0; i < Math.min(topN, sortedEntries.size()); i++) {
-            topSentenceIndices.add(sortedEntries.get(i).getKey());
+    static String summarizeText(String text, int numSentences, Scoring scoring) {
+        // Repeated text (e.g. the same document at another length) is served from the cache
+        SummaryCache cache = SummaryCache.shared();
+        String key = SummaryCache.key(scoring.cacheVariant(), text);
+        RankedSummary ranked = cache.get(key);
+        if (ranked == null) {
+            ranked = rank(preprocessText(text), scoring);
+            cache.put(key, ranked);
         }
 
-        // Sort selected sentences by their original order
-        Collections.sort(topSentenceIndices);
+        return summarize(ranked, numSentences);
+    }
 
-        // Compile the summary
-        List<String> summary = new ArrayList<>();
-        for (Integer index : topSentenceIndices) {
-            summary.add(sentences.get(index));
+    // Summarize a file. Documents are streamed into the summarizer (.txt memory-mapped in parallel
+    // chunks, .pdf in parallel page ranges, .docx and .doc by paragraph) without ever holding the
+    // whole document as one String
+    public static String summarizeFile(String filename, int numSentences) {
+        Scoring scoring = Scoring.configured();
+        if (!SUPPORTED_TYPES.contains(fileType(filename))) {
+            return summarizeText(readFile(filename), numSentences, scoring);
         }
 
-        return summary;
+        RankedSummary ranked;
+        try {
+            ranked = rankFile(filename, scoring);
+        } catch (Exception e) {
+            e.printStackTrace();
+            ranked = rank(new DocumentStatistics(), scoring);
+        }
+
+        return summarize(ranked, numSentences);
     }
 
-    // Main summarization method
-    public static String summarizeText(String text, int numSentences) {
-        Set<String> stopWords = loadStopWords();
-        List<String> sentences = preprocessText(text);
+    // Summary of a file focused on the keywords: sentences mentioning more of them are preferred.
+    // The file is parsed once into a DocumentIndex; later calls, for any length or keywords, map it.
+    public static String summarizeFile(String filename, int numSentences, Collection<String> keywords) {
+        RankedSummary ranked;
+        try {
+            ranked = DocumentIndex.forFile(filename).focused(keywords);
+        } catch (Exception e) {
+            e.printStackTrace();
+            ranked = rank(new DocumentStatistics(), Scoring.configured());
+        }
+
+        return summarize(ranked, numSentences);
+    }
 
-        if (sentences.isEmpty()) {
+    // Ranked sentences of a file, keyed on its raw bytes so a cached file is not even parsed
+    static RankedSummary rankFile(String filename, Scoring scoring) throws IOException {
+        SummaryCache cache = SummaryCache.shared();
+        String key = SummaryCache.fileKey(scoring.cacheVariant(), Paths.get(filename));
+        RankedSummary ranked = cache.get(key);
+        if (ranked == null) {
+            ranked = rank(readStatistics(filename), scoring);
+            cache.put(key, ranked);
+        }
+        return ranked;
+    }
+
+    // Read and tokenize a document in the streaming form of its format. The streaming readers
+    // tokenize with the original rules, so language mode reads the whole text and segments it.
+    static DocumentStatistics readStatistics(String filename) throws IOException {
+        return readStatistics(filename, 0);
+    }
+
+    // As above on at most the given number of extraction threads; 0 leaves it to the reader
+    static DocumentStatistics readStatistics(String filename, int threads) throws IOException {
+        DocumentReaders.Reader reader = DocumentReaders.forFile(filename);
+        if (Language.isConfigured()) {
+            return preprocessText(readDocument(filename));
+        }
+        // Extraction and tokenizing are one pass here, so both are timed as the read stage
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.READ).bytes(new File(filename).length());
+        DocumentStatistics statistics = threads > 0
+                ? reader.readStatistics(filename, threads) : reader.readStatistics(filename);
+        timer.end(statistics);
+        return statistics;
+    }
+
+    // Top N sentences of a ranking, in original order; near-duplicates are skipped when
+    // -Dsummarizer.selection=diverse, see DiverseSelection
+    static String summarize(RankedSummary ranked, int numSentences) {
+        return summarize(ranked, numSentences, DiverseSelection.configured());
+    }
+
+    static String summarize(RankedSummary ranked, int numSentences, boolean diverse) {
+        if (ranked.isEmpty()) {
             return "No valid sentences found in the input text.";
         }
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.SELECT);
+        String summary = String.join(" ", ranked.select(numSentences, diverse));
+        timer.end();
+        return summary;
+    }
 
-        Map<String, Integer> wordFrequency = computeWordFrequency(sentences, stopWords);
-        Map<Integer, Double> sentenceScores = scoreSentences(sentences, wordFrequency);
-        List<String> summarySentences = generateSummary(sentences, sentenceScores, numSentences);
+    // Score every sentence and rank them all, so the summary can be cut at any length. Frequency
+    // scoring becomes TF-IDF with an IDF index; TextRank ranks by sentence graph centrality.
+    static RankedSummary rank(DocumentStatistics statistics, Scoring scoring) {
+        double[] sentenceScores = score(statistics, scoring);
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.RANK);
+        int[] ranking = TopSentences.rankAll(sentenceScores, sentenceScores.length);
+        timer.end();
+        return new RankedSummary(statistics.sentences, ranking);
+    }
 
-        return String.join(" ", summarySentences);
+    // Score of every sentence, indexed by sentence
+    static double[] score(DocumentStatistics statistics, Scoring scoring) {
+        IdfIndex idf = scoring.idf;
+        double[] sentenceScores;
+        StageMetrics.Timer timer;
+        if (scoring.mode == Scoring.Mode.TEXTRANK) {
+            timer = StageMetrics.start(StageMetrics.Stage.SCORE);
+            sentenceScores = TextRank.scores(statistics, countedTerms(statistics.dictionary, stopWords(statistics)));
+        } else if (statistics.sentences.size() >= ParallelSummarizer.MIN_PARALLEL_SENTENCES) {
+            return scoreParallel(statistics, idf);
+        } else if (idf == null) {
+            timer = StageMetrics.start(StageMetrics.Stage.COUNT);
+            TermDictionary wordFrequency = computeWordFrequency(statistics, stopWords(statistics));
+            timer.end();
+            timer = StageMetrics.start(StageMetrics.Stage.SCORE);
+            sentenceScores = scoreSentences(statistics, wordFrequency);
+        } else {
+            timer = StageMetrics.start(StageMetrics.Stage.COUNT);
+            TermDictionary wordFrequency = computeWordFrequency(statistics, stopWords(statistics));
+            int[] counts = new int[wordFrequency.size()];
+            for (int term = 0; term < counts.length; term++) {
+                counts[term] = wordFrequency.count(term);
+            }
+            timer.end();
+            timer = StageMetrics.start(StageMetrics.Stage.SCORE);
+            sentenceScores = scoreSentences(statistics, tfIdfWeights(wordFrequency, counts, idf));
+        }
+        timer.end();
+        return sentenceScores;
+    }
+
+    // Fork/join scoring for very large documents; produces the same scores
+    private static double[] scoreParallel(DocumentStatistics statistics, IdfIndex idf) {
+        ParallelSummarizer parallel = ParallelSummarizer.common();
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.COUNT);
+        boolean[] counted = countedTerms(statistics.dictionary, stopWords(statistics));
+        int[] wordFrequency = parallel.countWords(statistics, counted);
+        timer.end();
+        timer = StageMetrics.start(StageMetrics.Stage.SCORE);
+        double[] sentenceScores = idf == null
+                ? parallel.scoreSentences(statistics, wordFrequency, true)
+                : parallel.scoreSentences(statistics, tfIdfWeights(statistics.dictionary, wordFrequency, idf), true);
+        timer.end();
+        return sentenceScores;
     }
 
     public static void main(String[] args) {
+        // Batch mode: summarize a whole corpus in this JVM, see BatchSummarizer
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchSummarizer.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // Build a corpus IDF index for TF-IDF scoring, see IdfIndex
+        if (args.length > 0 && args[0].equals("--build-idf")) {
+            System.exit(IdfIndex.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // Pre-parsed document indexes for repeated and keyword-focused summaries, see DocumentIndex
+        if (args.length > 0 && args[0].equals("--index")) {
+            System.exit(DocumentIndex.runBuild(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--query")) {
+            System.exit(DocumentIndex.runQuery(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // HTTP service and its load generator, see SummaryServer
+        if (args.length > 0 && args[0].equals("--serve")) {
+            System.exit(SummaryServer.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--load-test")) {
+            System.exit(LoadGenerator.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // Training run for the launcher's AppCDS archive, see StartupTraining
+        if (args.length > 0 && args[0].equals("--cds-training")) {
+            System.exit(StartupTraining.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // Streaming mode: one pass with bounded memory, see StreamingSummarizer
+        if (args.length > 0 && args[0].equals("--stream")) {
+            System.exit(StreamingSummarizer.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         // Example usage:
         // Provide the path to your document here
-        String filename = "path_to_your_document.pdf"; // Change the path and extension accordingly
-        String documentText = readFile(filename);
+        String filename = args.length > 0 ? args[0] : "path_to_your_document.pdf"; // Change the path and extension accordingly
 
         // Specify the number of sentences for the summary
         int summaryLength = 5;
 
         // Generate and print the summary
-        String summary = summarizeText(documentText, summaryLength);
+        String summary = summarizeFile(filename, summaryLength);
         System.out.println("Summary:\n" + summary);
     }
 }
@@ -0,0 +1,254 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Corpus-wide document frequencies for TF-IDF scoring, built offline and memory-mapped for lookups.
+// The file holds the terms sorted, so a lookup is a binary search straight over the mapping; every
+// summarization in the process shares one read-only mapping instead of loading the table into heap.
+// Terms are stored in UTF-8 and sorted by byte, see TermNames, so the words of -Dsummarizer.language
+// mode index the same way as the original [a-z0-9.] terms. Version 1 files held ASCII only, which
+// reads the same, so they are still accepted.
+//
+// Layout (big-endian): magic, version, document count, term count,
+//                      int[termCount] document frequencies, int[termCount + 1] term offsets,
+//                      term bytes in sorted order.
+//
+// Build: DocumentSummarizer --build-idf <directory | @file-list> --output corpus.idf
+// Use:   -Dsummarizer.idf.index=corpus.idf, or DocumentSummarizer --batch ... --idf corpus.idf
+public final class IdfIndex {
+
+    private static final int MAGIC = 0x49444631; // "IDF1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+
+    private static final Map<Path, IdfIndex> OPEN = new ConcurrentHashMap<>();
+
+    private final MappedByteBuffer buffer;
+    private final int documentCount;
+    private final int termCount;
+    private final int frequenciesStart;
+    private final int offsetsStart;
+    private final int termsStart;
+    private final String fingerprint;
+
+    private IdfIndex(MappedByteBuffer buffer, String fingerprint) throws IOException {
+        this.buffer = buffer;
+        this.fingerprint = fingerprint;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) < 1 || buffer.getInt(4) > VERSION) {
+            throw new IOException("Not an IDF index");
+        }
+        documentCount = buffer.getInt(8);
+        termCount = buffer.getInt(12);
+        frequenciesStart = HEADER_BYTES;
+        offsetsStart = frequenciesStart + termCount * 4;
+        termsStart = offsetsStart + (termCount + 1) * 4;
+        if (termsStart > buffer.capacity() || termsStart + buffer.getInt(offsetsStart + termCount * 4) > buffer.capacity()) {
+            throw new IOException("Truncated IDF index");
+        }
+    }
+
+    // The index in the file, mapped once per process and shared by every caller
+    public static IdfIndex open(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        IdfIndex index = OPEN.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            return OPEN.computeIfAbsent(key, path -> {
+                try {
+                    return map(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static IdfIndex map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("IDF index larger than 2GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IdfIndex(buffer, SummaryCache.fileKey("idf/v" + VERSION, file));
+        }
+    }
+
+    // The index named by -Dsummarizer.idf.index, or null when TF-IDF scoring is not configured
+    static IdfIndex configured() {
+        return Configured.INDEX;
+    }
+
+    private static final class Configured {
+        static final IdfIndex INDEX = load();
+
+        private static IdfIndex load() {
+            String file = System.getProperty("summarizer.idf.index");
+            if (file == null || file.isEmpty()) {
+                return null;
+            }
+            try {
+                return open(Paths.get(file));
+            } catch (IOException e) {
+                System.err.println("Could not open IDF index " + file + ", using plain frequency scoring: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    public int documentCount() {
+        return documentCount;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    // Content hash of the index file, so cached summaries are tied to the index they were scored with
+    String fingerprint() {
+        return fingerprint;
+    }
+
+    // Number of corpus documents containing the term, 0 if it never occurred
+    public int documentFrequency(CharSequence term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = compare(middle, term);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return buffer.getInt(frequenciesStart + middle * 4);
+            }
+        }
+        return 0;
+    }
+
+    // Smoothed inverse document frequency: ln((N + 1) / (df + 1)) + 1, so unseen terms weigh most
+    // and terms found in every document still keep a small positive weight
+    public double idf(CharSequence term) {
+        return Math.log((documentCount + 1.0) / (documentFrequency(term) + 1.0)) + 1.0;
+    }
+
+    private int compare(int id, CharSequence term) {
+        int start = termsStart + buffer.getInt(offsetsStart + id * 4);
+        int end = termsStart + buffer.getInt(offsetsStart + (id + 1) * 4);
+        return TermNames.compare(buffer, start, end, term);
+    }
+
+    // Count, for every term, the documents it occurs in and write the index to output
+    static void build(List<Path> files, Path output) throws IOException {
+        TermDictionary documentFrequencies = new TermDictionary();
+        ReentrantLock lock = new ReentrantLock();
+        AtomicInteger documents = new AtomicInteger();
+
+        files.parallelStream().forEach(file -> {
+            TermDictionary terms;
+            try {
+                terms = DocumentSummarizer.readStatistics(file.toString()).dictionary;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Skipping " + file + ": " + e.getMessage());
+                return;
+            }
+            lock.lock();
+            try {
+                // Every term in a document's dictionary occurs in it at least once
+                for (int id = 0; id < terms.size(); id++) {
+                    documentFrequencies.increment(documentFrequencies.intern(terms.term(id)));
+                }
+                documents.incrementAndGet();
+            } finally {
+                lock.unlock();
+            }
+        });
+        write(documentFrequencies, documents.get(), output);
+    }
+
+    private static void write(TermDictionary documentFrequencies, int documentCount, Path output) throws IOException {
+        int termCount = documentFrequencies.size();
+        byte[][] terms = TermNames.encode(documentFrequencies);
+        Integer[] order = TermNames.sortedOrder(terms);
+
+        Path directory = output.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, output.getFileName().toString(), ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(documentCount);
+            out.writeInt(termCount);
+            for (int id : order) {
+                out.writeInt(documentFrequencies.count(id));
+            }
+            int offset = 0;
+            for (int id : order) {
+                out.writeInt(offset);
+                offset += terms[id].length;
+            }
+            out.writeInt(offset);
+            for (int id : order) {
+                out.write(terms[id]);
+            }
+        }
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Entry point for DocumentSummarizer --build-idf; returns the process exit code
+    static int run(String[] args) {
+        String source = null;
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--output")) {
+                    output = args[++i];
+                } else if (args[i].startsWith("--") || source != null) {
+                    throw new IllegalArgumentException(args[i]); // Not a second corpus
+                } else {
+                    source = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            source = null;
+        }
+        if (source == null || output == null) {
+            System.err.println("Usage: DocumentSummarizer --build-idf <directory | @file-list> --output corpus.idf");
+            return 2;
+        }
+
+        try {
+            List<Path> files = BatchSummarizer.listFiles(source);
+            long start = System.nanoTime();
+            build(files, Paths.get(output));
+            IdfIndex index = map(Paths.get(output));
+            System.err.println("Indexed " + index.documentCount() + " of " + files.size() + " documents, "
+                    + index.termCount() + " terms, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return index.documentCount() == files.size() ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Building the IDF index failed: " + e.getMessage());
+            return 1;
+        }
+    }
+}
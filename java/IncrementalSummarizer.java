@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+// Keeps the TextSummarizerAppWithLineWrap scores of a Swing Document up to date as it is edited.
+// On every edit only the sentences around the change are re-tokenized; their word counts are
+// applied as deltas, and a term's delta is pushed through its postings to exactly the sentences
+// that contain it. summary() then only has to pick the top N from the maintained scores.
+// With -Dsummarizer.language the sentences are found by SentenceSegmenter and the language's
+// stopwords score nothing, as in the app's summaries; the language is fixed when this is created.
+// Like Swing documents themselves, this is only used from the Event Dispatch Thread.
+public class IncrementalSummarizer implements DocumentListener {
+
+    private final Document document;
+    private final TermDictionary wordFrequency = new TermDictionary();
+    private final Tokenizer tokenizer = new Tokenizer(wordFrequency);
+    private final Language language; // Null for the original rules
+    private final SentenceSegmenter segmenter;
+
+    // Sentences in document order
+    private final List<Sentence> sentences = new ArrayList<>();
+
+    // Scores indexed by sentence slot; slots are stable while a sentence lives and then reused
+    private double[] scores = new double[256];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int slotCount;
+
+    // For every term, the slots of the sentences containing it (once per occurrence)
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+
+    // Net count change per term during one edit, and the terms that changed
+    private int[] termDeltas = new int[256];
+    private int[] touchedTerms = new int[64];
+    private int touchedCount;
+
+    public IncrementalSummarizer(Document document) {
+        this.document = document;
+        try {
+            language = Language.configured(document.getText(0, document.getLength()));
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        segmenter = language == null ? null : new SentenceSegmenter(language, wordFrequency);
+        rebuild(0, 0, document.getLength());
+    }
+
+    // Start following edits to the document
+    public void attach() {
+        document.addDocumentListener(this);
+    }
+
+    public void detach() {
+        document.removeDocumentListener(this);
+    }
+
+    public int sentenceCount() {
+        return sentences.size();
+    }
+
+    // Same result as TextSummarizerAppWithLineWrap.summarize on the current document text
+    public String summary(int summarySentencesCount) {
+        return summary(summarySentencesCount, false);
+    }
+
+    // With diverse set, near-duplicates of chosen sentences are skipped, see DiverseSelection
+    public String summary(int summarySentencesCount, boolean diverse) {
+        int count = sentences.size();
+        double[] orderedScores = new double[count];
+        for (int i = 0; i < count; i++) {
+            orderedScores[i] = scores[sentences.get(i).slot];
+        }
+
+        int[] selected = diverse
+                ? DiverseSelection.select(TopSentences.rankAll(orderedScores, count), this::sentenceText, summarySentencesCount)
+                : TopSentences.select(orderedScores, count, summarySentencesCount);
+        StringBuilder summary = new StringBuilder();
+        for (int index : selected) {
+            summary.append(sentenceText(index)).append(" ");
+        }
+        return summary.toString().trim();
+    }
+
+    private String sentenceText(int index) {
+        Sentence sentence = sentences.get(index);
+        try {
+            return document.getText(sentence.start, sentence.end - sentence.start);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Sentence offsets out of sync with the document", e);
+        }
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        edit(e.getOffset(), 0, e.getLength());
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        edit(e.getOffset(), e.getLength(), 0);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // Attribute changes do not touch the text
+    }
+
+    // The text [offset, offset + removed) was replaced by inserted characters
+    private void edit(int offset, int removed, int inserted) {
+        int count = sentences.size();
+        if (count == 0) {
+            rebuild(0, 0, document.getLength());
+            return;
+        }
+
+        // Re-tokenize from the sentence before the first one the edit can touch to the sentence
+        // after the last one; those two neighbours start and end on unchanged sentence boundaries.
+        // Touching means overlapping the edit or ending right at it, since that can move a boundary.
+        int first = 0;
+        while (first < count && sentences.get(first).end < offset) {
+            first++;
+        }
+        int last = first - 1;
+        while (last + 1 < count && sentences.get(last + 1).start <= offset + removed) {
+            last++;
+        }
+        first = first - 1;
+        last = last + 1;
+
+        int delta = inserted - removed;
+        int regionStart = first < 0 ? 0 : sentences.get(first).start;
+        int regionEnd = last >= count ? document.getLength() : sentences.get(last).end + delta;
+        first = Math.max(first, 0);
+        last = Math.min(last, count - 1);
+
+        for (int i = last + 1; i < count; i++) {
+            Sentence sentence = sentences.get(i);
+            sentence.start += delta;
+            sentence.end += delta;
+        }
+        rebuild(first, last + 1, regionEnd - regionStart, regionStart);
+    }
+
+    private void rebuild(int from, int to, int length) {
+        rebuild(from, to, length, 0);
+    }
+
+    // Replace sentences [from, to) with the sentences found in the document text
+    // [regionStart, regionStart + length), and update counts and scores accordingly
+    private void rebuild(int from, int to, int length, int regionStart) {
+        String region;
+        try {
+            region = document.getText(regionStart, length);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Sentence offsets out of sync with the document", e);
+        }
+
+        // Take the old sentences out of the counts and postings
+        List<Sentence> removed = sentences.subList(from, to);
+        for (Sentence sentence : removed) {
+            for (int term : sentence.terms) {
+                removePosting(term, sentence.slot);
+                recordDelta(term, -1);
+            }
+            freeSlot(sentence.slot);
+        }
+        removed.clear();
+
+        // Tokenize the region into new sentences with absolute offsets
+        // The segmenter decides a sentence end from its last word and the next word, and both
+        // neighbours in the region are unchanged, so their boundaries hold here as well
+        List<Sentence> added = new ArrayList<>();
+        DocumentStatistics sink = new DocumentStatistics(wordFrequency) {
+            @Override
+            void addSentence(CharSequence text, int start, int end, int[] terms) {
+                added.add(new Sentence(regionStart + start, regionStart + end, countedTerms(terms)));
+            }
+        };
+        if (segmenter == null) {
+            tokenizer.tokenizeVerbatim(region, sink);
+        } else {
+            segmenter.segment(region, sink);
+        }
+        for (Sentence sentence : added) {
+            for (int term : sentence.terms) {
+                recordDelta(term, 1);
+            }
+        }
+        sentences.addAll(from, added);
+
+        // Apply the net count changes; every surviving sentence containing a changed term moves
+        // by the delta once per occurrence, which keeps its score equal to the sum of counts
+        for (int i = 0; i < touchedCount; i++) {
+            int term = touchedTerms[i];
+            int termDelta = termDeltas[term];
+            termDeltas[term] = 0;
+            if (termDelta == 0) {
+                continue;
+            }
+            wordFrequency.addCount(term, termDelta);
+            int[] slots = postings[term];
+            for (int p = 0; p < postingSizes[term]; p++) {
+                scores[slots[p]] += termDelta;
+            }
+        }
+        touchedCount = 0;
+
+        // New sentences are scored from the updated counts, then join the postings
+        for (Sentence sentence : added) {
+            sentence.slot = allocateSlot();
+            double score = 0.0;
+            for (int term : sentence.terms) {
+                score += wordFrequency.count(term);
+                addPosting(term, sentence.slot);
+            }
+            scores[sentence.slot] = score;
+        }
+    }
+
+    // Stopwords are left out of a sentence's terms in language mode: the app never counts them,
+    // so they add nothing to its scores
+    private int[] countedTerms(int[] terms) {
+        if (language == null) {
+            return terms;
+        }
+        int count = 0;
+        int[] counted = new int[terms.length];
+        for (int term : terms) {
+            if (!language.stopWords.contains(wordFrequency.term(term))) {
+                counted[count++] = term;
+            }
+        }
+        return count == terms.length ? terms : Arrays.copyOf(counted, count);
+    }
+
+    private void recordDelta(int term, int change) {
+        ensureTermCapacity(term);
+        if (termDeltas[term] == 0) {
+            if (touchedCount == touchedTerms.length) {
+                touchedTerms = Arrays.copyOf(touchedTerms, touchedCount * 2);
+            }
+            touchedTerms[touchedCount++] = term; // May be listed twice if it returns to 0; harmless
+        }
+        termDeltas[term] += change;
+    }
+
+    private void addPosting(int term, int slot) {
+        ensureTermCapacity(term);
+        int[] slots = postings[term];
+        if (slots == null) {
+            slots = postings[term] = new int[4];
+        } else if (postingSizes[term] == slots.length) {
+            slots = postings[term] = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[postingSizes[term]++] = slot;
+    }
+
+    private void removePosting(int term, int slot) {
+        int[] slots = postings[term];
+        int size = postingSizes[term];
+        for (int p = size - 1; p >= 0; p--) {
+            if (slots[p] == slot) {
+                slots[p] = slots[size - 1];
+                postingSizes[term] = size - 1;
+                return;
+            }
+        }
+    }
+
+    private void ensureTermCapacity(int term) {
+        if (term >= postings.length) {
+            int capacity = Math.max(postings.length * 2, term + 1);
+            postings = Arrays.copyOf(postings, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+            termDeltas = Arrays.copyOf(termDeltas, capacity);
+        }
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == scores.length) {
+            scores = Arrays.copyOf(scores, slotCount * 2);
+        }
+        return slotCount++;
+    }
+
+    private void freeSlot(int slot) {
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private static final class Sentence {
+        int start;
+        int end;
+        final int[] terms;
+        int slot;
+
+        Sentence(int start, int end, int[] terms) {
+            this.start = start;
+            this.end = end;
+            this.terms = terms;
+        }
+    }
+}
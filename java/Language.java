@@ -0,0 +1,170 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-language data for SentenceSegmenter: stopwords, abbreviations that do not end a sentence,
+// and a few punctuation habits. Each language's sets are built once into immutable sets shared by
+// every run and thread. Languages are looked up by ISO 639-1 code; more can be added with
+// register().
+//
+// System property: summarizer.language=en|de|fr|es|it|pt|nl|auto. Unset (the default), both
+// summarizers keep their original ASCII rules; auto picks the language whose stopwords are most
+// frequent at the start of each text.
+final class Language {
+
+    private static final Map<String, Language> LANGUAGES = new ConcurrentHashMap<>();
+
+    static final Language ENGLISH = register(new Language("en",
+            words("a an the and or but if while with is are was were be been in at of on for to from by as"
+                    + " it its this that these those he she they we you i his her their our your not no"
+                    + " so than then there here which who whom what when where why how all any some"
+                    + " can could will would shall should may might must do does did has have had"),
+            words("mr mrs ms dr prof sr jr st vs etc inc ltd co corp dept fig vol pp p ed eds"
+                    + " approx est jan feb mar apr jun jul aug sep sept oct nov dec mt"),
+            false, false));
+
+    static final Language GERMAN = register(new Language("de",
+            words("der die das den dem des ein eine einer eines einem einen und oder aber wenn"
+                    + " ist sind war waren sein bin bist wird werden wurde wurden hat haben hatte"
+                    + " in im an am auf aus bei mit nach von vom zu zum zur für über unter vor"
+                    + " ich du er sie es wir ihr nicht kein keine auch als wie so dass daß noch nur"),
+            words("z.b d.h u.a u.u bzw ca dr prof hr fr nr str usw vgl ggf evtl inkl bspw"
+                    + " jh jhd abs abb tel mio mrd s.o s.u o.ä"),
+            false, true));
+
+    static final Language FRENCH = register(new Language("fr",
+            words("le la les l un une des du de d et ou mais si est sont était être a ont avait"
+                    + " dans en au aux sur sous par pour avec sans ce cette ces se sa son ses"
+                    + " il elle ils elles nous vous je tu on ne pas plus qui que qu quoi dont où"),
+            words("m mm mme mlle dr pr st ste etc cf env p ex av apr janv févr avr juil sept oct"
+                    + " nov déc n°"),
+            true, false));
+
+    static final Language SPANISH = register(new Language("es",
+            words("el la los las lo un una unos unas y o pero si es son era fue ser ha han había"
+                    + " en de del al a con sin por para sobre entre su sus se le les me te nos"
+                    + " que qué quien como cuando donde no más muy ya este esta estos estas"),
+            words("sr sra srta dr dra prof etc ej p.ej pág núm av ud uds vd vds ee.uu"),
+            false, false));
+
+    static final Language ITALIAN = register(new Language("it",
+            words("il lo la i gli le un uno una e o ma se è sono era erano essere ha hanno aveva"
+                    + " di del della dei degli delle a al alla in nel nella con su per tra fra"
+                    + " che chi come quando dove non più molto questo questa si ci ne l"),
+            words("sig sigg dott prof ing avv ecc es pag n tel"),
+            true, false));
+
+    static final Language PORTUGUESE = register(new Language("pt",
+            words("o a os as um uma uns umas e ou mas se é são era foi ser tem têm tinha"
+                    + " de do da dos das em no na nos nas por para com sem sobre entre"
+                    + " que quem como quando onde não mais muito este esta isso seu sua"),
+            words("sr sra srta dr dra prof etc ex pág núm av"),
+            false, false));
+
+    static final Language DUTCH = register(new Language("nl",
+            words("de het een en of maar als is zijn was waren wordt worden werd heeft hebben had"
+                    + " in op aan van voor met bij uit naar over onder door tot om"
+                    + " ik jij je hij zij ze wij we u niet geen ook dat dit die wat wie hoe waar"),
+            words("dhr mevr mw dr prof ir ing mr bijv bv enz etc nr vgl blz ca m.a.w d.w.z o.a"),
+            false, true));
+
+    final String code;
+    final Set<String> stopWords;      // Lowercase, never counted as summary words
+    final Set<String> abbreviations;  // Lowercase, without the final period ("z.b", "dr")
+    final boolean elision;            // An apostrophe ends the word (French "l'homme" is "l", "homme")
+    final boolean ordinalPeriods;     // "3. Oktober": a period after a number does not end a sentence
+
+    Language(String code, Set<String> stopWords, Set<String> abbreviations, boolean elision,
+             boolean ordinalPeriods) {
+        this.code = code;
+        this.stopWords = Set.copyOf(stopWords);
+        this.abbreviations = Set.copyOf(abbreviations);
+        this.elision = elision;
+        this.ordinalPeriods = ordinalPeriods;
+    }
+
+    // Add or replace a language, keyed on its code
+    static Language register(Language language) {
+        LANGUAGES.put(language.code, language);
+        return language;
+    }
+
+    // The language with this code, or null
+    static Language forCode(String code) {
+        return LANGUAGES.get(code.toLowerCase());
+    }
+
+    static Set<String> codes() {
+        return Collections.unmodifiableSet(LANGUAGES.keySet());
+    }
+
+    // Language mode from -Dsummarizer.language for this text, or null to keep the original rules
+    static Language configured(CharSequence text) {
+        String code = System.getProperty("summarizer.language");
+        if (code == null || code.isEmpty()) {
+            return null;
+        }
+        if (code.equalsIgnoreCase("auto")) {
+            return detect(text);
+        }
+        Language language = forCode(code);
+        if (language == null) {
+            throw new IllegalArgumentException("Unknown language: " + code + "; known: " + codes() + " and auto");
+        }
+        return language;
+    }
+
+    static boolean isConfigured() {
+        String code = System.getProperty("summarizer.language");
+        return code != null && !code.isEmpty();
+    }
+
+    // Summary cache key variant: rankings in language mode are cached apart from the original rules
+    static String cacheVariant(String variant) {
+        return isConfigured() ? variant + "/lang=" + System.getProperty("summarizer.language").toLowerCase() : variant;
+    }
+
+    // The language whose stopwords occur most often among the first words of the text; English on
+    // a tie or when none occur
+    static Language detect(CharSequence text) {
+        int limit = Math.min(text.length(), 4096);
+        Map<Language, Integer> hits = new HashMap<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= limit; i++) {
+            char c = i < limit ? text.charAt(i) : ' ';
+            if (Character.isLetter(c)) {
+                word.append(Character.toLowerCase(c));
+                continue;
+            }
+            if (word.length() > 0) {
+                String w = word.toString();
+                for (Language language : LANGUAGES.values()) {
+                    if (language.stopWords.contains(w)) {
+                        hits.merge(language, 1, Integer::sum);
+                    }
+                }
+                word.setLength(0);
+            }
+        }
+        Language best = ENGLISH;
+        int bestHits = hits.getOrDefault(ENGLISH, 0);
+        for (Map.Entry<Language, Integer> entry : hits.entrySet()) {
+            if (entry.getValue() > bestHits) {
+                best = entry.getKey();
+                bestHits = entry.getValue();
+            }
+        }
+        return best;
+    }
+
+    private static Set<String> words(String words) {
+        return Set.of(words.split(" "));
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
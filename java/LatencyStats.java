@@ -0,0 +1,88 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Latencies of the most recent requests in a fixed ring, for percentiles and recent throughput.
+// Recording is a couple of array stores under a lock; percentiles sort a copy on demand.
+final class LatencyStats {
+
+    private final long[] latencies;   // Nanoseconds
+    private final long[] finishTimes; // System.nanoTime() at completion
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: callers are virtual threads
+    private long count;
+
+    LatencyStats(int capacity) {
+        latencies = new long[capacity];
+        finishTimes = new long[capacity];
+    }
+
+    void record(long startNanos, long finishNanos) {
+        lock.lock();
+        try {
+            int slot = (int) (count % latencies.length);
+            latencies[slot] = finishNanos - startNanos;
+            finishTimes[slot] = finishNanos;
+            count++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long count() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Latency percentiles (in ms) and completions per second over the last windowNanos
+    Snapshot snapshot(long windowNanos) {
+        long[] recent;
+        long now = System.nanoTime();
+        int inWindow = 0;
+        lock.lock();
+        try {
+            int size = (int) Math.min(count, latencies.length);
+            recent = Arrays.copyOf(latencies, size);
+            for (int i = 0; i < size; i++) {
+                if (now - finishTimes[i] <= windowNanos) {
+                    inWindow++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(recent);
+        return new Snapshot(recent, inWindow * 1e9 / windowNanos);
+    }
+
+    static final class Snapshot {
+        private final long[] sorted;
+        final double recentPerSecond; // Undercounts once the window holds more requests than the ring
+
+        Snapshot(long[] sorted, double recentPerSecond) {
+            this.sorted = sorted;
+            this.recentPerSecond = recentPerSecond;
+        }
+
+        int samples() {
+            return sorted.length;
+        }
+
+        // Nearest-rank percentile in milliseconds, 0 without samples
+        double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1] / 1e6;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"samples\":%d,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"max\":%.3f}",
+                    samples(), percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load test for SummaryServer: a fixed number of clients, each on a virtual thread, send requests
+// back to back until the total is reached. Without --file every request carries a distinct small
+// text (exercising batching and the real work); with --file the same document is sent each time
+// (exercising upload parsing and the summary cache). Reports throughput, latency percentiles and
+// 429s, then the server's own /stats.
+//
+// Usage: DocumentSummarizer --load-test [http://127.0.0.1:8080] [--clients N] [--requests N]
+//            [--file document] [--sentences N]
+final class LoadGenerator {
+
+    private static final String[] WORDS = {
+        "summary", "document", "server", "request", "latency", "throughput", "queue", "batch",
+        "parser", "sentence", "frequency", "score", "window", "client", "thread", "memory",
+        "cache", "index", "report", "budget", "meeting", "review", "deadline", "project"
+    };
+
+    private LoadGenerator() {
+    }
+
+    // Entry point for DocumentSummarizer --load-test; returns the process exit code
+    static int run(String[] args) {
+        String base = "http://127.0.0.1:8080";
+        int clients = 64;
+        int total = 2000;
+        int sentences = 5;
+        String file = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--clients":
+                        clients = Integer.parseInt(args[++i]);
+                        break;
+                    case "--requests":
+                        total = Integer.parseInt(args[++i]);
+                        break;
+                    case "--sentences":
+                        sentences = Integer.parseInt(args[++i]);
+                        break;
+                    case "--file":
+                        file = args[++i];
+                        break;
+                    default:
+                        base = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: DocumentSummarizer --load-test [http://127.0.0.1:8080] [--clients N]"
+                    + " [--requests N] [--file document] [--sentences N]");
+            return 2;
+        }
+
+        byte[] document = null;
+        String type = null;
+        if (file != null) {
+            try {
+                document = Files.readAllBytes(Paths.get(file));
+            } catch (IOException e) {
+                System.err.println("Could not read " + file + ": " + e.getMessage());
+                return 1;
+            }
+            type = DocumentSummarizer.fileType(file).substring(1);
+        }
+
+        URI target = URI.create(base + "/summarize?sentences=" + sentences + (type == null ? "" : "&type=" + type));
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LatencyStats latency = new LatencyStats(Math.max(total, 1));
+        AtomicInteger issued = new AtomicInteger();
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        byte[] body = document;
+        int requestCount = total;
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                executor.submit(() -> {
+                    int n;
+                    while ((n = issued.getAndIncrement()) < requestCount) {
+                        HttpRequest request = HttpRequest.newBuilder(target)
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(body != null ? body : sampleText(n)))
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 200) {
+                                latency.record(sent, System.nanoTime());
+                                ok.incrementAndGet();
+                            } else if (status == 429) {
+                                rejected.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                });
+            }
+        } // close() waits for every client
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LatencyStats.Snapshot snapshot = latency.snapshot(Long.MAX_VALUE);
+        System.out.println(String.format(Locale.ROOT,
+                "%d requests from %d clients in %.2f s: %d ok, %d rejected (429), %d failed; %.1f ok/s",
+                total, clients, seconds, ok.get(), rejected.get(), failed.get(), ok.get() / seconds));
+        System.out.println(String.format(Locale.ROOT, "latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f",
+                snapshot.percentileMillis(50), snapshot.percentileMillis(90), snapshot.percentileMillis(99),
+                snapshot.percentileMillis(100)));
+        try {
+            HttpResponse<String> stats = client.send(HttpRequest.newBuilder(URI.create(base + "/stats")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            System.out.println("server: " + stats.body());
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Could not read server stats: " + e.getMessage());
+        }
+        return failed.get() == 0 ? 0 : 1;
+    }
+
+    // A small, distinct text per request: a few sentences of words picked by the request number
+    private static byte[] sampleText(int n) {
+        StringBuilder text = new StringBuilder();
+        long state = n * 0x9E3779B97F4A7C15L + 1;
+        for (int s = 0; s < 8; s++) {
+            for (int w = 0; w < 12; w++) {
+                state = state * 6364136223846793005L + 1442695040888963407L;
+                text.append(WORDS[(int) ((state >>> 33) % WORDS.length)]).append(w == 11 ? ". " : " ");
+            }
+        }
+        return text.append("Request ").append(n).append('.').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads large .txt files through a memory-mapped FileChannel. The file is cut into chunks of at
+// most the chunk size that end right after a '.' byte where the chunk has one, so a chunk holds
+// whole sentences; chunks are decoded and tokenized in parallel and never joined into one String.
+// A sentence longer than a chunk is cut where the chunk ends, and the chunks up to the end of
+// that sentence form one run, tokenized in order by one Tokenizer that carries the unfinished
+// sentence across the cuts; runs are tokenized in parallel.
+public class MappedTextReader {
+
+    // Chunk size; also the most that is mapped and decoded at once
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    public static DocumentStatistics read(String filename) throws IOException {
+        return read(Paths.get(filename), DEFAULT_CHUNK_SIZE);
+    }
+
+    static DocumentStatistics read(Path path, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<List<long[]>> runs = splitRuns(channel, Math.max(chunkSize, 16));
+
+            // Runs are processed in parallel but collected in file order
+            List<DocumentStatistics> parts;
+            try {
+                parts = runs.parallelStream()
+                        .map(run -> readRun(channel, run))
+                        .toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            DocumentStatistics statistics = new DocumentStatistics();
+            for (DocumentStatistics part : parts) {
+                statistics.merge(part);
+            }
+            return statistics;
+        }
+    }
+
+    // Compute [start, end) byte ranges of at most chunkSize bytes, grouped into runs: the last
+    // range of a run ends just after a '.' (or at end of file), the others are cut inside a
+    // sentence. In UTF-8 the '.' byte never occurs inside a multi-byte sequence, and cuts are
+    // moved back to a character start, so every range decodes cleanly.
+    private static List<List<long[]>> splitRuns(FileChannel channel, int chunkSize) throws IOException {
+        List<List<long[]>> runs = new ArrayList<>();
+        List<long[]> run = new ArrayList<>();
+        long size = channel.size();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            boolean cut = false;
+            if (end < size) {
+                long boundary = lastSentenceEnd(channel, start, end);
+                if (boundary > start) {
+                    end = boundary;
+                } else {
+                    end = cutPosition(channel, start, end);
+                    cut = true;
+                }
+            }
+            run.add(new long[] {start, end});
+            if (!cut) {
+                runs.add(run);
+                run = new ArrayList<>();
+            }
+            start = end;
+        }
+        return runs;
+    }
+
+    // Position just after the last '.' in [start, end), or -1 if there is none
+    private static long lastSentenceEnd(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        for (int i = buffer.limit() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '.') {
+                return start + i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // end, or up to four bytes before it, so the next range starts on a UTF-8 character and a
+    // \r\n line break stays in one range (the tokenizer reads it as one space)
+    private static long cutPosition(FileChannel channel, long start, long end) throws IOException {
+        int back = (int) Math.min(4, end - start - 1);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, end - back, back + 1);
+        int i = back;
+        while (i > 0 && (buffer.get(i) & 0xc0) == 0x80) {
+            i--;
+        }
+        if (i > 0 && buffer.get(i) == '\n' && buffer.get(i - 1) == '\r') {
+            i--;
+        }
+        return end - back + i;
+    }
+
+    private static DocumentStatistics readRun(FileChannel channel, List<long[]> run) {
+        // Each run interns into its own dictionary; merge() maps the IDs into the first one.
+        // readTextFile joins lines with a space, so line breaks are read the same way here.
+        DocumentStatistics statistics = new DocumentStatistics();
+        Tokenizer tokenizer = new Tokenizer(statistics.dictionary);
+        for (long[] chunk : run) {
+            tokenizer.appendNormalized(readChunk(channel, chunk[0], chunk[1]), true, statistics);
+        }
+        return statistics;
+    }
+
+    private static CharBuffer readChunk(FileChannel channel, long start, long end) {
+        try {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            return decoder.decode(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
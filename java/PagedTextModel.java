@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import javax.swing.AbstractListModel;
+
+// A large text file as a list of display rows over a read-only memory mapping, for a JList with
+// a fixed cell size: Swing then only asks for the rows in view, and only the pages holding them
+// are decoded (a few pages are kept). Opening the file is one scan for line breaks; lines longer
+// than ROW_BYTES are cut into several rows at character boundaries.
+//
+// The text also feeds the summarizer without materializing it: tokenizeVerbatim reads it the way
+// TextSummarizerAppWithLineWrap.readFile does (lines joined with a space, then trimmed), chunk
+// by chunk, with chunks cut only where a sentence ends at a line break.
+final class PagedTextModel extends AbstractListModel<String> {
+
+    static final int ROW_BYTES = 200;
+
+    private static final int PAGE_ROWS = 256;
+    private static final int CACHED_PAGES = 16;
+    private static final int CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final int PROGRESS_STEP = 1 << 20; // Report and check for cancellation every MB
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int rowCount;
+    private final int[] rowStart;   // Byte offset of each row; rowCount + 1 entries
+    private final int[] contentEnd; // End of each row's text, before any line break
+    private final boolean[] endsLine;
+
+    // Decoded pages of rows, least recently used first
+    private final LinkedHashMap<Integer, String[]> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock pagesLock = new ReentrantLock();
+
+    private PagedTextModel(Path file, MappedByteBuffer buffer, int rowCount, int[] rowStart, int[] contentEnd,
+                           boolean[] endsLine) {
+        this.file = file;
+        this.buffer = buffer;
+        this.rowCount = rowCount;
+        this.rowStart = rowStart;
+        this.contentEnd = contentEnd;
+        this.endsLine = endsLine;
+    }
+
+    // Map the file and index its rows. progress receives 0-100; an interrupt of the calling
+    // thread (SwingWorker.cancel) stops the scan with an InterruptedIOException.
+    static PagedTextModel open(Path file, IntConsumer progress) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File larger than 2GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int size = buffer.capacity();
+        int[] rowStart = new int[1024];
+        int[] contentEnd = new int[1024];
+        boolean[] endsLine = new boolean[1024];
+        int rows = 0;
+        int start = 0;
+        int nextReport = PROGRESS_STEP;
+        while (start < size) {
+            // Line breaks as BufferedReader.readLine sees them: \n, \r or \r\n
+            int end = start;
+            int breakLength = 0;
+            while (end < size) {
+                byte b = buffer.get(end);
+                if (b == '\n' || b == '\r') {
+                    breakLength = b == '\r' && end + 1 < size && buffer.get(end + 1) == '\n' ? 2 : 1;
+                    break;
+                }
+                if (end - start == ROW_BYTES) {
+                    break;
+                }
+                end++;
+            }
+            boolean lineEnd = breakLength > 0 || end == size;
+            if (!lineEnd) {
+                // Long line: back up to the start of a UTF-8 character
+                while (end > start + 1 && (buffer.get(end) & 0xc0) == 0x80) {
+                    end--;
+                }
+            }
+            if (rows + 1 >= rowStart.length) {
+                rowStart = Arrays.copyOf(rowStart, rowStart.length * 2);
+                contentEnd = Arrays.copyOf(contentEnd, contentEnd.length * 2);
+                endsLine = Arrays.copyOf(endsLine, endsLine.length * 2);
+            }
+            rowStart[rows] = start;
+            contentEnd[rows] = end;
+            endsLine[rows] = lineEnd;
+            rows++;
+            start = end + breakLength;
+
+            if (start >= nextReport) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Loading cancelled");
+                }
+                progress.accept((int) (100L * start / size));
+                nextReport = start + PROGRESS_STEP;
+            }
+        }
+        rowStart[rows] = size;
+        progress.accept(100);
+        return new PagedTextModel(file, buffer, rows, rowStart, contentEnd, endsLine);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long byteSize() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int getSize() {
+        return rowCount;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        int page = index / PAGE_ROWS;
+        pagesLock.lock();
+        try {
+            String[] rows = pages.get(page);
+            if (rows == null) {
+                int first = page * PAGE_ROWS;
+                rows = new String[Math.min(PAGE_ROWS, rowCount - first)];
+                for (int r = 0; r < rows.length; r++) {
+                    rows[r] = decode(rowStart[first + r], contentEnd[first + r]);
+                }
+                pages.put(page, rows);
+                if (pages.size() > CACHED_PAGES) {
+                    Iterator<String[]> eldest = pages.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return rows[index - page * PAGE_ROWS];
+        } finally {
+            pagesLock.unlock();
+        }
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // The whole text as readFile returns it; only for files small enough for a JTextArea
+    String text() {
+        StringBuilder text = new StringBuilder(buffer.capacity() + rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            text.append(decode(rowStart[row], contentEnd[row]));
+            if (endsLine[row]) {
+                text.append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    // Same sentences and term IDs as Tokenizer.tokenizeVerbatim on readFile's String, tokenized
+    // in parallel chunks. A chunk ends after a line whose text ends a sentence, where the joining
+    // space is a sentence break, and the whitespace the tokenizer would skip there is dropped.
+    DocumentStatistics tokenizeVerbatim() {
+        List<int[]> chunks = chunks();
+        List<DocumentStatistics> parts = IntStream.range(0, chunks.size()).parallel()
+                .mapToObj(c -> tokenizeChunk(chunks.get(c)[0], chunks.get(c)[1], c == 0, c == chunks.size() - 1))
+                .toList();
+        DocumentStatistics statistics = new DocumentStatistics();
+        for (DocumentStatistics part : parts) {
+            statistics.merge(part);
+        }
+        return statistics;
+    }
+
+    // [first, last) row ranges of about CHUNK_BYTES each
+    private List<int[]> chunks() {
+        List<int[]> chunks = new ArrayList<>();
+        int first = 0;
+        for (int row = 0; row < rowCount; row++) {
+            boolean last = row == rowCount - 1;
+            if (last || (rowStart[row + 1] - rowStart[first] >= CHUNK_BYTES && endsSentence(row))) {
+                chunks.add(new int[] {first, row + 1});
+                first = row + 1;
+            }
+        }
+        return chunks;
+    }
+
+    // Whether the row ends a line whose last non-space character ends a sentence
+    private boolean endsSentence(int row) {
+        if (!endsLine[row]) {
+            return false;
+        }
+        for (int i = contentEnd[row] - 1; i >= rowStart[row]; i--) {
+            byte b = buffer.get(i);
+            if (!Tokenizer.isSplitSpace((char) b)) {
+                return b == '.' || b == '!' || b == '?';
+            }
+        }
+        return false;
+    }
+
+    private DocumentStatistics tokenizeChunk(int first, int last, boolean firstChunk, boolean lastChunk) {
+        StringBuilder text = new StringBuilder();
+        for (int row = first; row < last; row++) {
+            text.append(decode(rowStart[row], contentEnd[row]));
+            if (endsLine[row]) {
+                text.append(' ');
+            }
+        }
+        // readFile trims the whole text; between chunks the tokenizer skips the whitespace run
+        int start = 0;
+        int end = text.length();
+        while (start < end && (firstChunk ? text.charAt(start) <= ' ' : Tokenizer.isSplitSpace(text.charAt(start)))) {
+            start++;
+        }
+        while (lastChunk && end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        DocumentStatistics statistics = new DocumentStatistics();
+        new Tokenizer(statistics.dictionary).tokenizeVerbatim(text.substring(start, end), statistics);
+        return statistics;
+    }
+}
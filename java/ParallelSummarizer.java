@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Fork/join version of the summarization pipeline for very large documents. The text is cut at
+// sentence boundaries and tokenized per piece, then the sentence list is split into segments:
+// each segment counts words into its own table (tables are summed pairwise) and scores its own
+// sentences. The scores are identical to the sequential pipeline's, and are ranked by
+// TopSentences.rankAll like them.
+final class ParallelSummarizer {
+
+    // Below these sizes the sequential pipeline is faster than splitting the work
+    static final int MIN_PARALLEL_CHARS = 1 << 20;
+    static final int MIN_PARALLEL_SENTENCES = 1 << 14;
+
+    private static final int MIN_SEGMENT_SENTENCES = 4096;
+    private static final int MIN_PIECE_CHARS = 256 * 1024;
+
+    private static final ParallelSummarizer COMMON = new ParallelSummarizer(ForkJoinPool.commonPool());
+
+    private final ForkJoinPool pool;
+
+    ParallelSummarizer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    static ParallelSummarizer common() {
+        return COMMON;
+    }
+
+    // Parallel Tokenizer.tokenizeNormalized: pieces end just after a '.'
+    DocumentStatistics tokenizeNormalized(CharSequence text) {
+        List<int[]> pieces = split(text, false);
+        List<DocumentStatistics> parts = pool.invoke(new TokenizeTask(text, pieces, 0, pieces.size(), false));
+        return mergeParts(parts);
+    }
+
+    // Parallel Tokenizer.tokenizeVerbatim: pieces end after the whitespace following '.', '!' or '?'
+    DocumentStatistics tokenizeVerbatim(CharSequence text) {
+        List<int[]> pieces = split(text, true);
+        List<DocumentStatistics> parts = pool.invoke(new TokenizeTask(text, pieces, 0, pieces.size(), true));
+        return mergeParts(parts);
+    }
+
+    // Word frequency per term ID; only terms with counted[term] set are counted (all if counted is null)
+    int[] countWords(DocumentStatistics statistics, boolean[] counted) {
+        return pool.invoke(new CountTask(statistics.sentenceTerms, counted, statistics.dictionary.size(),
+                0, statistics.sentenceTerms.size(), segmentSize(statistics.sentenceTerms.size())));
+    }
+
+    // Sum of word frequencies per sentence, divided by the sentence length when normalize is set
+    double[] scoreSentences(DocumentStatistics statistics, int[] wordFrequency, boolean normalize) {
+        double[] termWeights = new double[wordFrequency.length];
+        for (int term = 0; term < termWeights.length; term++) {
+            termWeights[term] = wordFrequency[term];
+        }
+        return scoreSentences(statistics, termWeights, normalize);
+    }
+
+    // Sum of term weights per sentence, divided by the sentence length when normalize is set
+    double[] scoreSentences(DocumentStatistics statistics, double[] termWeights, boolean normalize) {
+        List<int[]> sentenceTerms = statistics.sentenceTerms;
+        double[] scores = new double[sentenceTerms.size()];
+        pool.invoke(new ScoreTask(sentenceTerms, termWeights, normalize, scores,
+                0, scores.length, segmentSize(scores.length)));
+        return scores;
+    }
+
+    private int segmentSize(int sentences) {
+        int segments = pool.getParallelism() * 4;
+        return Math.max(MIN_SEGMENT_SENTENCES, (sentences + segments - 1) / segments);
+    }
+
+    // Cut the text into [start, end) pieces that each contain whole sentences
+    private List<int[]> split(CharSequence text, boolean verbatim) {
+        int length = text.length();
+        int pieceSize = Math.max(MIN_PIECE_CHARS, length / (pool.getParallelism() * 4) + 1);
+        List<int[]> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < length) {
+            int end = start + pieceSize >= length ? length : boundaryAfter(text, start + pieceSize, verbatim);
+            pieces.add(new int[] {start, end});
+            start = end;
+        }
+        return pieces;
+    }
+
+    // First sentence boundary at or after from, or the end of the text
+    private static int boundaryAfter(CharSequence text, int from, boolean verbatim) {
+        int length = text.length();
+        for (int i = Math.max(from, 1); i < length; i++) {
+            char c = text.charAt(i);
+            if (!verbatim) {
+                if (text.charAt(i - 1) == '.') {
+                    return i;
+                }
+            } else if (Tokenizer.isSplitSpace(c) && isTerminator(text.charAt(i - 1))) {
+                // Include the whole whitespace run so the next piece starts on the next sentence
+                while (i < length && Tokenizer.isSplitSpace(text.charAt(i))) {
+                    i++;
+                }
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    private static DocumentStatistics mergeParts(List<DocumentStatistics> parts) {
+        DocumentStatistics statistics = new DocumentStatistics();
+        for (DocumentStatistics part : parts) {
+            statistics.merge(part);
+        }
+        return statistics;
+    }
+
+    private static final class TokenizeTask extends RecursiveTask<List<DocumentStatistics>> {
+        private final CharSequence text;
+        private final List<int[]> pieces;
+        private final int from;
+        private final int to;
+        private final boolean verbatim;
+
+        TokenizeTask(CharSequence text, List<int[]> pieces, int from, int to, boolean verbatim) {
+            this.text = text;
+            this.pieces = pieces;
+            this.from = from;
+            this.to = to;
+            this.verbatim = verbatim;
+        }
+
+        @Override
+        protected List<DocumentStatistics> compute() {
+            if (to - from <= 1) {
+                List<DocumentStatistics> parts = new ArrayList<>();
+                if (to > from) {
+                    int[] piece = pieces.get(from);
+                    CharSequence slice = text.subSequence(piece[0], piece[1]);
+                    DocumentStatistics part = new DocumentStatistics();
+                    Tokenizer tokenizer = new Tokenizer(part.dictionary);
+                    if (verbatim) {
+                        tokenizer.tokenizeVerbatim(slice, part);
+                    } else {
+                        tokenizer.tokenizeNormalized(slice, false, part);
+                    }
+                    parts.add(part);
+                }
+                return parts;
+            }
+            int middle = (from + to) >>> 1;
+            TokenizeTask left = new TokenizeTask(text, pieces, from, middle, verbatim);
+            left.fork();
+            List<DocumentStatistics> right = new TokenizeTask(text, pieces, middle, to, verbatim).compute();
+            List<DocumentStatistics> parts = left.join();
+            parts.addAll(right);
+            return parts;
+        }
+    }
+
+    private static final class CountTask extends RecursiveTask<int[]> {
+        private final List<int[]> sentenceTerms;
+        private final boolean[] counted;
+        private final int vocabulary;
+        private final int from;
+        private final int to;
+        private final int segment;
+
+        CountTask(List<int[]> sentenceTerms, boolean[] counted, int vocabulary, int from, int to, int segment) {
+            this.sentenceTerms = sentenceTerms;
+            this.counted = counted;
+            this.vocabulary = vocabulary;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= segment) {
+                int[] frequency = new int[vocabulary];
+                for (int i = from; i < to; i++) {
+                    for (int term : sentenceTerms.get(i)) {
+                        if (counted == null || counted[term]) {
+                            frequency[term]++;
+                        }
+                    }
+                }
+                return frequency;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(sentenceTerms, counted, vocabulary, from, middle, segment);
+            left.fork();
+            int[] frequency = new CountTask(sentenceTerms, counted, vocabulary, middle, to, segment).compute();
+            int[] other = left.join();
+            for (int term = 0; term < vocabulary; term++) {
+                frequency[term] += other[term];
+            }
+            return frequency;
+        }
+    }
+
+    private static final class ScoreTask extends RecursiveAction {
+        private final List<int[]> sentenceTerms;
+        private final double[] termWeights;
+        private final boolean normalize;
+        private final double[] scores;
+        private final int from;
+        private final int to;
+        private final int segment;
+
+        ScoreTask(List<int[]> sentenceTerms, double[] termWeights, boolean normalize, double[] scores,
+                  int from, int to, int segment) {
+            this.sentenceTerms = sentenceTerms;
+            this.termWeights = termWeights;
+            this.normalize = normalize;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= segment) {
+                for (int i = from; i < to; i++) {
+                    int[] terms = sentenceTerms.get(i);
+                    double score = 0.0;
+                    for (int term : terms) {
+                        score += termWeights[term];
+                    }
+                    scores[i] = normalize ? score / terms.length : score;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoreTask(sentenceTerms, termWeights, normalize, scores, from, middle, segment),
+                      new ScoreTask(sentenceTerms, termWeights, normalize, scores, middle, to, segment));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+// Extracts PDF text in page ranges on a few workers. PDDocument is not thread-safe, so every
+// worker opens its own document and stripper; ranges are handed to the consumer strictly in page
+// order as soon as they are ready. Workers may only run a small window ahead of the consumer,
+// so at most a few ranges of text are held at once instead of the whole document.
+//
+// Every worker holds its own parsed copy of the document, so the worker count is capped
+// (-Dsummarizer.pdf.workers, default up to 4) rather than following the core count, and decoded
+// streams beyond a few MB per copy are buffered in a temp file. One worker extracts on the
+// calling thread without starting a pool; callers that bound parsing themselves (batch mode)
+// ask for that.
+public class PdfPageRangeReader {
+
+    static final int PAGES_PER_RANGE = 16;
+
+    // Extracted ranges a worker may complete ahead of the consumer, per worker
+    private static final int WINDOW_PER_WORKER = 2;
+
+    private static final int MAX_WORKERS = 4;
+
+    // Main memory for decoded streams per document copy; the rest goes to a temp file
+    private static final long MAIN_MEMORY_PER_COPY = 4L << 20;
+
+    // Read the document and feed its sentences into new statistics as pages are extracted
+    public static DocumentStatistics read(String filename) throws IOException {
+        return read(filename, configuredWorkers());
+    }
+
+    // Same, with at most the given number of extraction threads (and document copies)
+    static DocumentStatistics read(String filename, int workers) throws IOException {
+        DocumentStatistics statistics = new DocumentStatistics();
+        Tokenizer tokenizer = new Tokenizer(statistics.dictionary);
+        extract(filename, workers, text -> tokenizer.appendNormalized(text, false, statistics));
+        return statistics;
+    }
+
+    static int configuredWorkers() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Integer.getInteger("summarizer.pdf.workers", Math.min(MAX_WORKERS, cores)));
+    }
+
+    // The whole text in one String, as DocumentSummarizer.readFile returns it
+    static String readText(String filename) throws IOException {
+        try (PDDocument document = PDDocument.load(new File(filename))) {
+            return new PDFTextStripper().getText(document);
+        }
+    }
+
+    // Pass the text of every page range, in order, to rangeText, using up to maxWorkers threads
+    static void extract(String filename, int maxWorkers, Consumer<String> rangeText) throws IOException {
+        File file = new File(filename);
+        int pages;
+        int ranges;
+        try (PDDocument document = load(file)) {
+            pages = document.getNumberOfPages();
+            ranges = (pages + PAGES_PER_RANGE - 1) / PAGES_PER_RANGE;
+            if (maxWorkers <= 1 || ranges <= 1) {
+                // The copy already loaded extracts every range on this thread
+                PDFTextStripper stripper = new PDFTextStripper();
+                for (int range = 0; range < ranges; range++) {
+                    setRange(stripper, range, pages);
+                    rangeText.accept(stripper.getText(document));
+                }
+                return;
+            }
+        }
+
+        int workers = Math.min(ranges, maxWorkers);
+        List<CompletableFuture<String>> results = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            results.add(new CompletableFuture<>());
+        }
+
+        // A worker takes a permit before claiming the next range, so the lowest range the
+        // consumer is waiting for is always claimed by a worker that can run
+        Semaphore window = new Semaphore(workers * WINDOW_PER_WORKER);
+        AtomicInteger nextRange = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-page-range");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (int w = 0; w < workers; w++) {
+                executor.execute(() -> extractRanges(file, pages, ranges, nextRange, window, results));
+            }
+            for (int i = 0; i < ranges; i++) {
+                String text = results.get(i).join();
+                results.set(i, null); // Let the text go once it has been consumed
+                window.release();
+                rangeText.accept(text);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("PDF extraction failed: " + filename, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void extractRanges(File file, int pages, int ranges, AtomicInteger nextRange,
+                                      Semaphore window, List<CompletableFuture<String>> results) {
+        try (PDDocument document = load(file)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            while (true) {
+                window.acquire();
+                int range = nextRange.getAndIncrement();
+                if (range >= ranges) {
+                    return;
+                }
+                setRange(stripper, range, pages);
+                results.get(range).complete(stripper.getText(document));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Consumer gave up; nothing is waiting for us
+        } catch (Exception e) {
+            for (CompletableFuture<String> result : results) {
+                if (result != null) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static void setRange(PDFTextStripper stripper, int range, int pages) {
+        stripper.setStartPage(range * PAGES_PER_RANGE + 1);
+        stripper.setEndPage(Math.min(pages, (range + 1) * PAGES_PER_RANGE));
+    }
+
+    private static PDDocument load(File file) throws IOException {
+        return PDDocument.load(file, MemoryUsageSetting.setupMixed(MAIN_MEMORY_PER_COPY));
+    }
+}
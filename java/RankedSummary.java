@@ -0,0 +1,53 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The sentences of a document with their full score ranking. Any summary length is served by
+// taking a prefix of the ranking, so changing N never needs the document to be scored again.
+final class RankedSummary {
+
+    final List<String> sentences;
+    final int[] ranking; // Sentence indices, best first
+
+    RankedSummary(List<String> sentences, int[] ranking) {
+        this.sentences = sentences;
+        this.ranking = ranking;
+    }
+
+    boolean isEmpty() {
+        return sentences.isEmpty();
+    }
+
+    // The top N sentences in original order; same selection as TopSentences.select
+    List<String> top(int topN) {
+        int[] indices = Arrays.copyOf(ranking, Math.min(Math.max(topN, 0), ranking.length));
+        Arrays.sort(indices);
+        return sentencesAt(indices);
+    }
+
+    // Up to N of the best sentences in original order, skipping near-duplicates, see DiverseSelection
+    List<String> diverse(int topN) {
+        return sentencesAt(DiverseSelection.select(ranking, sentences::get, topN));
+    }
+
+    List<String> select(int topN, boolean diverse) {
+        return diverse ? diverse(topN) : top(topN);
+    }
+
+    private List<String> sentencesAt(int[] indices) {
+        List<String> summary = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            summary.add(sentences.get(index));
+        }
+        return summary;
+    }
+
+    // Rough heap footprint in chars, used to bound the in-memory cache
+    long weight() {
+        long weight = ranking.length * 2L;
+        for (String sentence : sentences) {
+            weight += sentence.length() + 24;
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,49 @@
+// How DocumentSummarizer scores sentences: by in-document word frequency, optionally weighted by
+// a corpus IDF index (TF-IDF), or by TextRank over the sentence similarity graph.
+//
+// System properties: summarizer.scoring=frequency|textrank, summarizer.idf.index=corpus.idf
+final class Scoring {
+
+    enum Mode { FREQUENCY, TEXTRANK }
+
+    static final Scoring FREQUENCY = new Scoring(Mode.FREQUENCY, null);
+    static final Scoring TEXTRANK = new Scoring(Mode.TEXTRANK, null);
+
+    final Mode mode;
+    final IdfIndex idf; // Only used by FREQUENCY; null for plain frequencies
+
+    private Scoring(Mode mode, IdfIndex idf) {
+        this.mode = mode;
+        this.idf = idf;
+    }
+
+    // Frequency scoring weighted by the index, or plain frequencies if it is null
+    static Scoring tfIdf(IdfIndex idf) {
+        return idf == null ? FREQUENCY : new Scoring(Mode.FREQUENCY, idf);
+    }
+
+    // By name as given on the command line; TF-IDF is frequency scoring with an index
+    static Scoring of(String mode, IdfIndex idf) {
+        switch (mode.toLowerCase()) {
+            case "frequency":
+            case "tfidf":
+                return tfIdf(idf);
+            case "textrank":
+                return TEXTRANK;
+            default:
+                throw new IllegalArgumentException("Unknown scoring mode: " + mode);
+        }
+    }
+
+    static Scoring configured() {
+        return of(System.getProperty("summarizer.scoring", "frequency"), IdfIndex.configured());
+    }
+
+    // Summary cache key variant; change the version whenever a mode's scores change
+    String cacheVariant() {
+        if (mode == Mode.TEXTRANK) {
+            return Language.cacheVariant("document/textrank/v1");
+        }
+        return Language.cacheVariant(idf == null ? DocumentSummarizer.CACHE_VARIANT : "document/tfidf/v1/" + idf.fingerprint());
+    }
+}
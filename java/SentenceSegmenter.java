@@ -0,0 +1,333 @@
+import java.util.Arrays;
+
+// Language-aware sentence segmentation and word normalization, the -Dsummarizer.language mode of
+// both summarizers. One linear pass over the text: every character is classified by a table
+// precomputed once for the Basic Multilingual Plane (supplementary code points are classified on
+// the fly), with no regular expressions and no backtracking. The only lookahead is across the
+// whitespace after a sentence terminator, which the pass then continues from.
+//
+// Sentences end at '.', '!', '?', '…' and their Arabic and Devanagari forms when followed
+// by whitespace (after any closing quotes or brackets), and at CJK full stops even without it.
+// A period does not end a sentence after a known abbreviation of the language ("Dr.", "z.B."),
+// a dotted acronym ("U.S."), an initial ("J. Smith"), an ordinal in languages that write them
+// with a period ("3. Oktober"), or when the next word starts in lowercase.
+//
+// Words are runs of Unicode letters, digits and combining marks, lowercased; apostrophes and
+// hyphens inside a word are kept ("don't", "well-known") except where the language elides ("l'").
+// Sentences keep their original text. Scripts written without spaces get sentence boundaries
+// but no word segmentation. A SentenceSegmenter is not thread-safe; use one per thread.
+final class SentenceSegmenter {
+
+    private static final byte OTHER = 0;
+    private static final byte LETTER = 1;          // Letters and combining marks
+    private static final byte DIGIT = 2;
+    private static final byte SPACE = 3;
+    private static final byte PERIOD = 4;
+    private static final byte TERMINATOR = 5;      // Ends a sentence when whitespace follows
+    private static final byte FULL_STOP = 6;       // CJK: ends a sentence without whitespace
+    private static final byte CLOSER = 7;          // Closing brackets and quotes
+    private static final byte OPENER = 8;          // Opening brackets and quotes, ¿ and ¡
+    private static final byte APOSTROPHE = 9;      // Inside a word, or a closing quote
+    private static final byte HYPHEN = 10;
+
+    private static final byte[] CLASSES = new byte[Character.MAX_VALUE + 1];
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            CLASSES[c] = classify(c);
+        }
+    }
+
+    // Longest abbreviation looked up, in chars ("m.a.w" is 5)
+    private static final int MAX_ABBREVIATION = 8;
+
+    private final Language language;
+    private final TermDictionary dictionary;
+    private char[] word = new char[64];
+    private int wordLength;
+    private int[] terms = new int[64];
+    private int termCount;
+
+    SentenceSegmenter(Language language, TermDictionary dictionary) {
+        this.language = language;
+        this.dictionary = dictionary;
+    }
+
+    private static byte classify(int c) {
+        switch (c) {
+            case '.':
+                return PERIOD;
+            case '!': case '?': case '…': case '‼': case '⁇': case '⁈': case '⁉':
+            case '؟': case '۔': case '।': case '॥': case '።':
+                return TERMINATOR;
+            case '。': case '！': case '？': case '｡':
+                return FULL_STOP;
+            case '\'': case '’':
+                return APOSTROPHE;
+            case '-': case '‐': case '‑':
+                return HYPHEN;
+            case '"':
+                return CLOSER;
+            case '¿': case '¡':
+                return OPENER;
+            default:
+                break;
+        }
+        if (Character.isLetter(c)) {
+            return LETTER;
+        }
+        if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+            return SPACE;
+        }
+        switch (Character.getType(c)) {
+            case Character.NON_SPACING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+                return LETTER;
+            case Character.END_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+                return CLOSER;
+            case Character.START_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+                return OPENER;
+            default:
+                return OTHER;
+        }
+    }
+
+    private static byte classAt(CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            return classify(Character.toCodePoint(c, text.charAt(i + 1)));
+        }
+        return CLASSES[c];
+    }
+
+    // Sentences of the text in the language's rules, into new statistics
+    static DocumentStatistics segment(CharSequence text, Language language) {
+        DocumentStatistics statistics = new DocumentStatistics();
+        new SentenceSegmenter(language, statistics.dictionary).segment(text, statistics);
+        return statistics;
+    }
+
+    void segment(CharSequence text, DocumentStatistics out) {
+        out.language = language;
+        int length = text.length();
+        int sentenceStart = -1; // First non-space char of the current sentence
+        int tokenStart = -1;    // First char of the current whitespace-delimited token
+        wordLength = 0;
+        termCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int width = 1;
+            byte type;
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                type = classify(Character.toCodePoint(c, text.charAt(i + 1)));
+                width = 2;
+            } else {
+                type = CLASSES[c];
+            }
+
+            if (type == SPACE) {
+                endWord();
+                tokenStart = -1;
+                continue;
+            }
+            if (sentenceStart < 0) {
+                sentenceStart = i;
+            }
+            if (tokenStart < 0) {
+                tokenStart = i;
+            }
+
+            switch (type) {
+                case LETTER:
+                case DIGIT:
+                    if (width == 2) {
+                        int lower = Character.toLowerCase(Character.toCodePoint(c, text.charAt(i + 1)));
+                        appendWordChar(Character.highSurrogate(lower));
+                        appendWordChar(Character.lowSurrogate(lower));
+                        i++;
+                    } else {
+                        appendWordChar(Character.toLowerCase(c));
+                    }
+                    break;
+                case APOSTROPHE:
+                    if (wordLength > 0 && !language.elision && i + 1 < length && classAt(text, i + 1) == LETTER) {
+                        appendWordChar('\'');
+                    } else {
+                        endWord();
+                    }
+                    break;
+                case HYPHEN:
+                    if (wordLength > 0 && i + 1 < length && isWordClass(classAt(text, i + 1))) {
+                        appendWordChar('-');
+                    } else {
+                        endWord();
+                    }
+                    break;
+                case PERIOD:
+                case TERMINATOR:
+                case FULL_STOP: {
+                    if (type == PERIOD && i + 1 < length && isWordClass(classAt(text, i + 1))) {
+                        // Inside a token: "3.14", "e.g", "example.com"
+                        if (wordLength > 0 && isDigit(word[wordLength - 1]) && classAt(text, i + 1) == DIGIT) {
+                            appendWordChar('.');
+                        } else {
+                            endWord();
+                        }
+                        break;
+                    }
+                    endWord();
+                    boolean period = type == PERIOD;
+                    boolean fullStop = type == FULL_STOP;
+                    // The sentence takes the rest of the terminator run and any closing marks
+                    int end = i + width;
+                    while (end < length) {
+                        byte next = classAt(text, end);
+                        if (next == PERIOD || next == TERMINATOR || next == CLOSER || next == APOSTROPHE) {
+                            end++;
+                        } else if (next == FULL_STOP) {
+                            fullStop = true;
+                            end++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (end < length && !fullStop && classAt(text, end) != SPACE) {
+                        i = end - 1; // "?!x": no whitespace, so no sentence end
+                        break;
+                    }
+                    if (fullStop || endsSentence(text, tokenStart, i, end, period)) {
+                        addSentence(text, sentenceStart, end, out);
+                        sentenceStart = -1;
+                        tokenStart = -1;
+                    }
+                    i = end - 1;
+                    break;
+                }
+                default:
+                    endWord(); // Other punctuation and symbols separate words
+            }
+        }
+        if (sentenceStart >= 0) {
+            endWord();
+            addSentence(text, sentenceStart, length, out);
+        }
+        wordLength = 0;
+        termCount = 0;
+    }
+
+    // Whether the terminator at [terminator, end) ends the sentence, judged by the token before it
+    // and the first word after the whitespace that follows
+    private boolean endsSentence(CharSequence text, int tokenStart, int terminator, int end, boolean period) {
+        int next = end;
+        while (next < text.length() && (classAt(text, next) == SPACE || classAt(text, next) == OPENER
+                || classAt(text, next) == CLOSER || classAt(text, next) == APOSTROPHE)) {
+            next++;
+        }
+        if (next == text.length()) {
+            return true;
+        }
+        char following = text.charAt(next);
+        if (Character.isLowerCase(following)) {
+            return false; // Continues in lowercase: "Yahoo! is", "approx. ten"
+        }
+        if (!period) {
+            return true;
+        }
+
+        // The token before the period, without leading brackets and quotes
+        int start = tokenStart;
+        while (start < terminator && (classAt(text, start) == OPENER || classAt(text, start) == CLOSER
+                || classAt(text, start) == APOSTROPHE)) {
+            start++;
+        }
+        int tokenLength = terminator - start;
+        if (tokenLength <= 0) {
+            return true;
+        }
+        if (tokenLength == 1 && Character.isUpperCase(text.charAt(start)) && Character.isLetter(following)) {
+            return false; // An initial: "J. Smith"
+        }
+        if (language.ordinalPeriods && !Character.isDigit(following) && isNumber(text, start, terminator)
+                && tokenLength <= 4) {
+            return false; // "am 3. Oktober"
+        }
+        if (tokenLength > MAX_ABBREVIATION) {
+            return true;
+        }
+        if (isDottedAcronym(text, start, terminator)) {
+            return false; // "U.S.", "e.g."
+        }
+        char[] token = new char[tokenLength];
+        for (int k = 0; k < tokenLength; k++) {
+            token[k] = Character.toLowerCase(text.charAt(start + k));
+        }
+        return !language.abbreviations.contains(new String(token));
+    }
+
+    // Single letters separated by periods: "u.s", "e.g", "z.b"
+    private static boolean isDottedAcronym(CharSequence text, int start, int end) {
+        if (end - start < 3) {
+            return false;
+        }
+        for (int k = start; k < end; k++) {
+            boolean letterSlot = (k - start) % 2 == 0;
+            char c = text.charAt(k);
+            if (letterSlot ? !Character.isLetter(c) : c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordClass(byte type) {
+        return type == LETTER || type == DIGIT;
+    }
+
+    private static boolean isNumber(CharSequence text, int start, int end) {
+        for (int k = start; k < end; k++) {
+            if (!isDigit(text.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Sentences without a single word ("...", "—") are dropped: they cannot be scored
+    private void addSentence(CharSequence text, int start, int end, DocumentStatistics out) {
+        endWord();
+        if (termCount == 0) {
+            return;
+        }
+        out.addSentence(text, start, end, Arrays.copyOf(terms, termCount));
+        termCount = 0;
+    }
+
+    private void appendWordChar(char c) {
+        if (wordLength == word.length) {
+            word = Arrays.copyOf(word, wordLength * 2);
+        }
+        word[wordLength++] = c;
+    }
+
+    private void endWord() {
+        if (wordLength == 0) {
+            return;
+        }
+        // A trailing apostrophe or hyphen only joins when a letter followed, so none is left here
+        if (termCount == terms.length) {
+            terms = Arrays.copyOf(terms, termCount * 2);
+        }
+        terms[termCount++] = dictionary.intern(word, 0, wordLength);
+        wordLength = 0;
+    }
+}
@@ -0,0 +1,349 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Per-stage instrumentation of the summarizers. A stage is bracketed with start(stage) and one of
+// the end methods, which
+//  - commits a summarizer.Stage JDK Flight Recorder event while Flight Recorder runs, e.g.
+//    java -XX:StartFlightRecording:filename=run.jfr ... or jcmd <pid> JFR.start. The event class
+//    is not even loaded otherwise: initializing JFR costs a one-shot CLI run several times its work.
+//  - adds to process-wide counters and a latency histogram per stage, see report() and toJson()
+//  - adds to the breakdown of the calling thread's Run, if one was begun (the app's status bar).
+//
+// Allocation is what the calling thread allocated during the stage (fork/join workers' share is
+// not included). It is measured in long-running modes, which call trackAllocation(), and while
+// Flight Recorder runs; java.management is kept out of one-shot runs. It is not measurable on
+// virtual threads, and is then left out of the averages.
+final class StageMetrics {
+
+    enum Stage {
+        READ("read"),             // Extraction from the file; the streaming readers also tokenize
+        PREPROCESS("preprocess"), // Sentence splitting, normalization and term IDs
+        COUNT("count"),           // Word frequencies
+        SCORE("score"),           // Sentence scores (frequency, TF-IDF or TextRank)
+        RANK("rank"),             // Ordering all sentences by score
+        SELECT("select");         // Cutting the summary from the ranking
+
+        final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    @Name("summarizer.Stage")
+    @Label("Summarizer Stage")
+    @Category("Summarizer")
+    @Description("One stage of summarizing a document")
+    @StackTrace(false)
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+
+        @Label("Sentences")
+        int sentences;
+
+        @Label("Tokens")
+        long tokens;
+
+        @Label("Vocabulary")
+        int vocabulary;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated; // -1 when not measurable
+    }
+
+    // Histogram buckets by powers of two microseconds: bucket b holds [2^(b-1), 2^b) us
+    private static final int BUCKETS = 40;
+
+    private static final Map<Stage, Totals> TOTALS = new EnumMap<>(Stage.class);
+    static {
+        for (Stage stage : Stage.values()) {
+            TOTALS.put(stage, new Totals());
+        }
+    }
+
+    private static final ThreadLocal<Run> CURRENT_RUN = new ThreadLocal<>();
+
+    private static volatile boolean trackAllocation;
+
+    private StageMetrics() {
+    }
+
+    private static final class Totals {
+        final LongAdder runs = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+        final LongAdder allocationRuns = new LongAdder(); // Runs where allocation was measurable
+        final LongAdder bytes = new LongAdder();
+        final LongAdder sentences = new LongAdder();
+        final LongAdder tokens = new LongAdder();
+        final LongAdder vocabulary = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        // Upper bound of the bucket holding the percentile, in milliseconds
+        double percentileMillis(double percentile) {
+            long total = 0;
+            long[] counts = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] = histogram.get(b);
+                total += counts[b];
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen >= rank) {
+                    return (1L << b) / 1000.0;
+                }
+            }
+            return (1L << (BUCKETS - 1)) / 1000.0;
+        }
+    }
+
+    // The thread allocation counter, loaded on first use so that java.management stays out of
+    // startup; null if the JVM does not support it
+    private static final class Allocation {
+        static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            try {
+                if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                        && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            } catch (RuntimeException | LinkageError e) {
+                // Fall through: allocation is not reported
+            }
+            return null;
+        }
+
+        // Bytes allocated so far by the current thread, or -1
+        static long current() {
+            return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    // Measure allocation from now on; for the app and the server
+    static void trackAllocation() {
+        trackAllocation = true;
+    }
+
+    static Timer start(Stage stage) {
+        return new Timer(stage);
+    }
+
+    // One stage in progress; end it exactly once
+    static final class Timer {
+        private final Stage stage;
+        private final StageEvent event; // null while Flight Recorder is not running
+        private final long startAllocated;
+        private final long startNanos;
+        private long bytes;
+
+        private Timer(Stage stage) {
+            this.stage = stage;
+            boolean recording = FlightRecorder.isInitialized();
+            if (recording) {
+                event = new StageEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+            startAllocated = trackAllocation || recording ? Allocation.current() : -1;
+            startNanos = System.nanoTime();
+        }
+
+        // Bytes read by this stage, for READ
+        Timer bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        void end() {
+            end(0, 0, 0);
+        }
+
+        // Sizes from the document the stage produced or worked on
+        void end(DocumentStatistics statistics) {
+            long tokens = 0;
+            for (int[] terms : statistics.sentenceTerms) {
+                tokens += terms.length;
+            }
+            end(statistics.sentences.size(), tokens, statistics.dictionary.size());
+        }
+
+        void end(int sentences, long tokens, int vocabulary) {
+            long nanos = System.nanoTime() - startNanos;
+            long endAllocated = startAllocated < 0 ? -1 : Allocation.current();
+            long allocated = endAllocated < 0 ? -1 : endAllocated - startAllocated;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.stage = stage.label;
+                    event.bytes = bytes;
+                    event.sentences = sentences;
+                    event.tokens = tokens;
+                    event.vocabulary = vocabulary;
+                    event.allocated = allocated;
+                    event.commit();
+                }
+            }
+
+            Totals totals = TOTALS.get(stage);
+            totals.runs.increment();
+            totals.nanos.add(nanos);
+            if (allocated >= 0) {
+                totals.allocated.add(allocated);
+                totals.allocationRuns.increment();
+            }
+            totals.bytes.add(bytes);
+            totals.sentences.add(sentences);
+            totals.tokens.add(tokens);
+            totals.vocabulary.add(vocabulary);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos / 1000));
+            totals.histogram.incrementAndGet(bucket);
+
+            Run run = CURRENT_RUN.get();
+            if (run != null) {
+                run.add(stage, nanos, allocated);
+            }
+        }
+    }
+
+    // Collect the stages this thread runs until end(), e.g. one summarization in the app
+    static Run beginRun() {
+        Run run = new Run();
+        CURRENT_RUN.set(run);
+        return run;
+    }
+
+    // Stage breakdown of one run; only touched by the thread that began it until end()
+    static final class Run {
+        private final long[] nanos = new long[Stage.values().length];
+        private final long[] allocated = new long[Stage.values().length];
+        private final boolean[] seen = new boolean[Stage.values().length];
+
+        private Run() {
+        }
+
+        private void add(Stage stage, long stageNanos, long stageAllocated) {
+            nanos[stage.ordinal()] += stageNanos;
+            if (stageAllocated > 0) {
+                allocated[stage.ordinal()] += stageAllocated;
+            }
+            seen[stage.ordinal()] = true;
+        }
+
+        Run end() {
+            if (CURRENT_RUN.get() == this) {
+                CURRENT_RUN.remove();
+            }
+            return this;
+        }
+
+        boolean isEmpty() {
+            for (boolean stage : seen) {
+                if (stage) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // e.g. "preprocess 12.4 ms (8.1 MB), count 0.9 ms, score 1.2 ms, rank 0.4 ms"
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Stage stage : Stage.values()) {
+                int s = stage.ordinal();
+                if (!seen[s]) {
+                    continue;
+                }
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(String.format(Locale.ROOT, "%s %.1f ms", stage.label, nanos[s] / 1e6));
+                if (allocated[s] >= 1024 * 1024) {
+                    text.append(String.format(Locale.ROOT, " (%.1f MB)", allocated[s] / (1024.0 * 1024.0)));
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    // Table of every stage that ran in this process, for the end of a batch job
+    static String report() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%-10s %8s %10s %9s %9s %9s %12s%n",
+                "stage", "runs", "total ms", "mean ms", "p50 ms", "p99 ms", "alloc MB/run"));
+        long bytes = 0;
+        long sentences = 0;
+        long tokens = 0;
+        long vocabulary = 0;
+        for (Stage stage : Stage.values()) {
+            Totals totals = TOTALS.get(stage);
+            long runs = totals.runs.sum();
+            if (runs == 0) {
+                continue;
+            }
+            double totalMillis = totals.nanos.sum() / 1e6;
+            long allocationRuns = totals.allocationRuns.sum();
+            report.append(String.format(Locale.ROOT, "%-10s %8d %10.1f %9.2f %9.2f %9.2f %12s%n",
+                    stage.label, runs, totalMillis, totalMillis / runs,
+                    totals.percentileMillis(50), totals.percentileMillis(99),
+                    allocationRuns == 0 ? "-" : String.format(Locale.ROOT, "%.2f",
+                            totals.allocated.sum() / (1024.0 * 1024.0) / allocationRuns)));
+            bytes += totals.bytes.sum();
+            if (stage == Stage.READ || stage == Stage.PREPROCESS) {
+                // The documents' sizes, as produced by tokenizing (in either stage)
+                sentences += totals.sentences.sum();
+                tokens += totals.tokens.sum();
+                vocabulary += totals.vocabulary.sum();
+            }
+        }
+        report.append(String.format(Locale.ROOT, "bytes read %d, sentences %d, tokens %d, vocabulary %d",
+                bytes, sentences, tokens, vocabulary));
+        return report.toString();
+    }
+
+    // The same counters as JSON, for the server's /stats
+    static String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Stage stage : Stage.values()) {
+            Totals totals = TOTALS.get(stage);
+            long runs = totals.runs.sum();
+            long allocationRuns = totals.allocationRuns.sum();
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT,
+                    "\"%s\":{\"runs\":%d,\"totalMillis\":%.3f,\"p50Millis\":%.3f,\"p99Millis\":%.3f,"
+                            + "\"allocatedBytesPerRun\":%d,\"bytes\":%d,\"sentences\":%d,\"tokens\":%d,\"vocabulary\":%d}",
+                    stage.label, runs, totals.nanos.sum() / 1e6, totals.percentileMillis(50), totals.percentileMillis(99),
+                    allocationRuns == 0 ? 0 : totals.allocated.sum() / allocationRuns,
+                    totals.bytes.sum(), totals.sentences.sum(), totals.tokens.sum(), totals.vocabulary.sum()));
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Training run for the AppCDS archive the summarize launcher builds: summarizes a small generated
+// .txt, .docx and .pdf the way the command line does (summarizeFile, and readFile plus
+// summarizeText), so every class those paths load ends up in the archive. Run it with
+// -XX:ArchiveClassesAtExit=summarizer.jsa, then start the real runs with
+// -XX:SharedArchiveFile=summarizer.jsa. The samples are written by hand (a docx is a small zip of
+// XML, a pdf a few objects), so no POI or PDFBox writer classes are archived; .doc has no sample.
+//
+// Usage: DocumentSummarizer --cds-training
+final class StartupTraining {
+
+    private static final String[] SENTENCES = {
+        "The quarterly report shows steady growth in every region.",
+        "Revenue from the new product line doubled compared to last year.",
+        "Costs rose slightly because of higher shipping prices.",
+        "The team expects the growth in revenue to continue next quarter.",
+        "A review of the shipping contracts is planned for the spring.",
+        "Customers in every region asked for faster delivery of the product."
+    };
+
+    private StartupTraining() {
+    }
+
+    // Entry point for DocumentSummarizer --cds-training; returns the process exit code
+    static int run(String[] args) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("summarizer-training");
+            // The disk tier of the summary cache is part of the common path, but the samples
+            // must not end up in the user's cache
+            if (System.getProperty("summarizer.cache.dir") == null) {
+                System.setProperty("summarizer.cache.dir", directory.resolve("cache").toString());
+            }
+
+            List<Path> samples = new ArrayList<>();
+            samples.add(writeText(directory.resolve("sample.txt")));
+            samples.add(writeDocx(directory.resolve("sample.docx")));
+            samples.add(writePdf(directory.resolve("sample.pdf")));
+            for (Path sample : samples) {
+                String filename = sample.toString();
+                if (DocumentSummarizer.readStatistics(filename).sentences.size() != SENTENCES.length) {
+                    System.err.println("Could not read the sample " + sample.getFileName());
+                    return 1;
+                }
+                DocumentSummarizer.summarizeFile(filename, 2);
+                DocumentSummarizer.summarizeText(DocumentSummarizer.readFile(filename), 2);
+                // Second run of the same file: the cached path
+                DocumentSummarizer.summarizeFile(filename, 3);
+            }
+            System.out.println("Trained on " + samples.size() + " sample documents.");
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Training failed: " + e.getMessage());
+            return 1;
+        } finally {
+            if (directory != null) {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static Path writeText(Path file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String sentence : SENTENCES) {
+            text.append(sentence).append('\n');
+        }
+        return Files.writeString(file, text, StandardCharsets.UTF_8);
+    }
+
+    // The three parts Word and POI need: content types, the package relationship, the document
+    private static Path writeDocx(Path file) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (String sentence : SENTENCES) {
+            body.append("<w:p><w:r><w:t>").append(sentence).append("</w:t></w:r></w:p>");
+        }
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            putEntry(zip, "[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/word/document.xml\" ContentType=\"application/"
+                    + "vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/></Types>");
+            putEntry(zip, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/"
+                    + "relationships/officeDocument\" Target=\"word/document.xml\"/></Relationships>");
+            putEntry(zip, "word/document.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+                    + "<w:body>" + body + "</w:body></w:document>");
+        }
+        return file;
+    }
+
+    private static void putEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // One page of Helvetica text, with a correct cross-reference table so PDFBox parses it
+    // without falling back to its repair scan
+    private static Path writePdf(Path file) throws IOException {
+        StringBuilder stream = new StringBuilder("BT /F1 11 Tf 72 720 Td 14 TL");
+        for (String sentence : SENTENCES) {
+            stream.append(" (").append(sentence).append(") '");
+        }
+        stream.append(" ET");
+
+        String[] objects = {
+            "<< /Type /Catalog /Pages 2 0 R >>",
+            "<< /Type /Pages /Kids [3 0 R] /Count 1 >>",
+            "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R"
+                    + " /Resources << /Font << /F1 5 0 R >> >> >>",
+            "<< /Length " + stream.length() + " >>\nstream\n" + stream + "\nendstream",
+            "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>"
+        };
+        StringBuilder pdf = new StringBuilder("%PDF-1.4\n");
+        long[] offsets = new long[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            offsets[i] = pdf.length(); // The content is ASCII, so chars are bytes
+            pdf.append(i + 1).append(" 0 obj\n").append(objects[i]).append("\nendobj\n");
+        }
+        long xref = pdf.length();
+        pdf.append("xref\n0 ").append(objects.length + 1).append("\n0000000000 65535 f \n");
+        for (long offset : offsets) {
+            pdf.append(String.format("%010d 00000 n \n", offset));
+        }
+        pdf.append("trailer\n<< /Size ").append(objects.length + 1).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(pdf.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        return file;
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Left in the temp directory
+        }
+    }
+}
@@ -0,0 +1,432 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One-pass DocumentSummarizer for inputs that do not fit in memory, such as live transcripts or
+// files larger than the heap. Term frequencies are estimated by a count-min sketch of fixed size
+// instead of an exact map, and only a bounded pool of candidate sentences is kept. When the pool
+// fills up, every candidate is re-scored against the current estimates and the weaker half is
+// dropped, so candidates follow the frequencies as they drift. summary() can be called at any
+// time, from any thread, and returns the best N of the text read so far.
+//
+// Memory is bounded by the pool, the sketch and the sentence being read. A sentence is cut after
+// MAX_SENTENCE_CHARS at the next whitespace (at twice that without whitespace), so input with no
+// periods, such as a log or CSV dump, cannot grow it without limit.
+//
+// With -Dsummarizer.language the text is read by SentenceSegmenter and the language's stopwords
+// are not counted, as in DocumentSummarizer's language mode ("auto" detects the language from the
+// first fragment). Where a sentence ends can depend on the text after it, so the last sentence of
+// each fragment is held back and segmented again with the next one; it is cut once it passes
+// MAX_SENTENCE_CHARS, and finish() takes it as complete at the end of the input.
+//
+// Usage: DocumentSummarizer --stream <file | -> [--sentences N] [--every M]
+public class StreamingSummarizer {
+
+    private static final int DEFAULT_POOL_SIZE = 4096;
+    private static final int DEFAULT_SKETCH_WIDTH = 1 << 18;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_DICTIONARY_TERMS = 1 << 16; // Scratch dictionary is cleared past this
+    static final int MAX_SENTENCE_CHARS = 2048; // Far above real sentences; keeps a full pool within tens of MB
+
+    private Set<String> stopWords;
+    private final CountMinSketch frequencies;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Term IDs only live until the scratch dictionary is cleared; sentences keep term hashes
+    private final TermDictionary scratch = new TermDictionary();
+    private final Tokenizer tokenizer = new Tokenizer(scratch);
+    private boolean[] counted = new boolean[0]; // Counted flag by scratch term ID, filled lazily
+    private int countedKnown;
+    private final DocumentStatistics sink = new DocumentStatistics(scratch) {
+        @Override
+        void addSentence(String sentence, int[] terms) {
+            accept(sentence, terms);
+            clearScratchWhenFull();
+        }
+    };
+
+    // Language mode, resolved from the first fragment; null keeps the original rules
+    private boolean languageResolved;
+    private SentenceSegmenter segmenter;
+    private final StringBuilder unfinished = new StringBuilder(); // From the held-back sentence on
+    private int heldStart = -1;
+    private int heldEnd;
+    private int[] heldTerms;
+    private final DocumentStatistics segmented = new DocumentStatistics(scratch) {
+        @Override
+        void addSentence(CharSequence text, int start, int end, int[] terms) {
+            // A sentence is final once the segmenter has started the next one
+            if (heldStart >= 0) {
+                accept(text.subSequence(heldStart, heldEnd).toString(), heldTerms);
+            }
+            heldStart = start;
+            heldEnd = end;
+            heldTerms = terms;
+        }
+    };
+
+    // Candidate sentences in original order; the pool is only ever compacted, never reordered
+    private final int poolSize;
+    private final String[] sentences;
+    private final int[][] sentenceHashes; // Hashes of the counted words
+    private final int[] wordCounts;       // All words, the denominator of the score
+    private int candidates;
+    private long sentencesRead;
+
+    private char pendingCarriageReturn; // A '\r' that ended the last chunk read, held back
+
+    public StreamingSummarizer() {
+        this(DEFAULT_POOL_SIZE, DEFAULT_SKETCH_WIDTH);
+    }
+
+    // poolSize candidates are kept (at least twice the longest summary wanted); the sketch takes
+    // SKETCH_DEPTH * sketchWidth ints and overestimates counts by about total words / sketchWidth
+    public StreamingSummarizer(int poolSize, int sketchWidth) {
+        this.stopWords = DocumentSummarizer.loadStopWords();
+        this.frequencies = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+        this.poolSize = Math.max(poolSize, 2);
+        this.sentences = new String[this.poolSize];
+        this.sentenceHashes = new int[this.poolSize][];
+        this.wordCounts = new int[this.poolSize];
+        tokenizer.limitSentenceLength(MAX_SENTENCE_CHARS);
+    }
+
+    // Summarize a UTF-8 stream in one pass
+    public static String summarize(InputStream in, int numSentences) throws IOException {
+        StreamingSummarizer summarizer = new StreamingSummarizer();
+        summarizer.read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return summarizer.summary(numSentences);
+    }
+
+    // Read the reader to its end. Lines are joined the way DocumentSummarizer.readFile joins them.
+    public void read(Reader reader) throws IOException {
+        char[] buffer = new char[64 * 1024];
+        int read;
+        while ((read = reader.read(buffer, 1, buffer.length - 1)) >= 0) {
+            append(buffer, read);
+        }
+        finish();
+    }
+
+    // Feed the next fragment of text, e.g. a transcript line as it arrives
+    public void append(CharSequence text) {
+        lock.lock();
+        try {
+            flushCarriageReturn();
+            feed(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // End of the input. With the original rules text after the last period is ignored as before;
+    // in language mode the held-back sentence counts even without a terminator.
+    public void finish() {
+        lock.lock();
+        try {
+            flushCarriageReturn();
+            if (segmenter != null && unfinished.length() > 0) {
+                // Segmented again: the scratch dictionary may have been cleared since
+                heldStart = -1;
+                segmenter.segment(unfinished, segmented);
+                if (heldStart >= 0) {
+                    accept(unfinished.substring(heldStart, heldEnd), heldTerms);
+                    heldStart = -1;
+                }
+                unfinished.setLength(0);
+                clearScratchWhenFull();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void feed(CharSequence text) {
+        if (!languageResolved) {
+            Language language = Language.configured(text);
+            if (language != null) {
+                segmenter = new SentenceSegmenter(language, scratch);
+                stopWords = language.stopWords;
+            }
+            languageResolved = true;
+        }
+        if (segmenter == null) {
+            tokenizer.appendNormalized(text, true, sink);
+            return;
+        }
+
+        // Line breaks joined as Tokenizer.appendNormalized joins them (\r\n is one space)
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                i++;
+            }
+            unfinished.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        heldStart = -1;
+        segmenter.segment(unfinished, segmented);
+        if (heldStart < 0) {
+            unfinished.setLength(0); // Not a single word yet
+        } else if (unfinished.length() - heldStart > MAX_SENTENCE_CHARS) {
+            accept(unfinished.substring(heldStart, heldEnd), heldTerms);
+            heldStart = -1;
+            unfinished.setLength(0);
+        } else {
+            unfinished.delete(0, heldStart);
+            heldEnd -= heldStart;
+            heldStart = 0;
+        }
+        // The held-back sentence is segmented again next time, so its term IDs may be dropped
+        clearScratchWhenFull();
+    }
+
+    // The read chars are at buffer[1..read]; buffer[0] is free for a held-back '\r'
+    private void append(char[] buffer, int read) {
+        lock.lock();
+        try {
+            int start = 1;
+            if (pendingCarriageReturn != 0) {
+                buffer[0] = pendingCarriageReturn;
+                pendingCarriageReturn = 0;
+                start = 0;
+            }
+            int end = read + 1;
+            if (end > start && buffer[end - 1] == '\r') {
+                // Keep \r\n split across reads as one line break
+                pendingCarriageReturn = '\r';
+                end--;
+            }
+            feed(CharBuffer.wrap(buffer, start, end - start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushCarriageReturn() {
+        lock.lock();
+        try {
+            if (pendingCarriageReturn != 0) {
+                pendingCarriageReturn = 0;
+                feed("\r");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long sentenceCount() {
+        lock.lock();
+        try {
+            return sentencesRead;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The top N sentences of the text read so far, in original order, scored like
+    // DocumentSummarizer.summarizeText but with estimated frequencies
+    public String summary(int numSentences) {
+        lock.lock();
+        try {
+            if (sentencesRead == 0) {
+                return "No valid sentences found in the input text.";
+            }
+            double[] scores = scoreCandidates();
+            StringBuilder summary = new StringBuilder();
+            for (int index : TopSentences.select(scores, candidates, numSentences)) {
+                if (summary.length() > 0) {
+                    summary.append(' ');
+                }
+                summary.append(sentences[index]);
+            }
+            return summary.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called by the tokenizer for every completed sentence
+    private void accept(String sentence, int[] terms) {
+        int countedTerms = 0;
+        int[] hashes = new int[terms.length];
+        for (int term : terms) {
+            if (isCounted(term)) {
+                int hash = scratch.hash(term);
+                hashes[countedTerms++] = hash;
+                frequencies.increment(hash);
+            }
+        }
+
+        if (candidates == poolSize) {
+            prune();
+        }
+        sentences[candidates] = sentence;
+        sentenceHashes[candidates] = Arrays.copyOf(hashes, countedTerms);
+        wordCounts[candidates] = terms.length;
+        candidates++;
+        sentencesRead++;
+    }
+
+    // Only between sentences: the tokenizer and segmenter hold term IDs of the one being read
+    private void clearScratchWhenFull() {
+        if (scratch.size() > MAX_DICTIONARY_TERMS) {
+            scratch.clear();
+            countedKnown = 0;
+        }
+    }
+
+    // Same rule as DocumentSummarizer.countedTerms: longer than two chars and not a stopword of the
+    // rules in use
+    private boolean isCounted(int term) {
+        if (term >= countedKnown) {
+            if (term >= counted.length) {
+                counted = Arrays.copyOf(counted, Math.max(counted.length * 2, term + 64));
+            }
+            for (int id = countedKnown; id <= term; id++) {
+                counted[id] = scratch.termLength(id) > 2 && !stopWords.contains(scratch.term(id));
+            }
+            countedKnown = term + 1;
+        }
+        return counted[term];
+    }
+
+    // Keep the better half of the pool under the current estimates, in original order
+    private void prune() {
+        double[] scores = scoreCandidates();
+        int[] keep = TopSentences.select(scores, candidates, poolSize / 2);
+        for (int i = 0; i < keep.length; i++) {
+            sentences[i] = sentences[keep[i]];
+            sentenceHashes[i] = sentenceHashes[keep[i]];
+            wordCounts[i] = wordCounts[keep[i]];
+        }
+        Arrays.fill(sentences, keep.length, candidates, null);
+        Arrays.fill(sentenceHashes, keep.length, candidates, null);
+        candidates = keep.length;
+    }
+
+    private double[] scoreCandidates() {
+        double[] scores = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            double score = 0.0;
+            for (int hash : sentenceHashes[i]) {
+                score += frequencies.estimate(hash);
+            }
+            scores[i] = score / wordCounts[i]; // Normalize by sentence length
+        }
+        return scores;
+    }
+
+    // Entry point for DocumentSummarizer --stream; returns the process exit code
+    static int run(String[] args) {
+        String source = null;
+        int summaryLength = 5;
+        long every = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--sentences":
+                        summaryLength = Integer.parseInt(args[++i]);
+                        break;
+                    case "--every":
+                        every = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        source = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            source = null;
+        }
+        if (source == null) {
+            System.err.println("Usage: DocumentSummarizer --stream <file | -> [--sentences N] [--every M]");
+            return 2;
+        }
+
+        StreamingSummarizer summarizer = new StreamingSummarizer();
+        try (Reader reader = source.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            if (every <= 0) {
+                summarizer.read(reader);
+            } else {
+                // Print an updated summary every M sentences, e.g. while following a live transcript
+                BufferedReader lines = new BufferedReader(reader);
+                long nextReport = every;
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    summarizer.append(line);
+                    summarizer.append(" ");
+                    if (summarizer.sentenceCount() >= nextReport) {
+                        System.out.println("After " + summarizer.sentenceCount() + " sentences:\n"
+                                + summarizer.summary(summaryLength) + "\n");
+                        nextReport = summarizer.sentenceCount() + every;
+                    }
+                }
+                summarizer.finish();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Streaming failed: " + e.getMessage());
+            return 1;
+        }
+        System.out.println("Summary:\n" + summarizer.summary(summaryLength));
+        return 0;
+    }
+
+    // Count-min sketch with conservative update: depth rows of width counters, an estimate is the
+    // smallest of a term's counters and never below its true count
+    private static final class CountMinSketch {
+        private final int[][] rows;
+        private final int mask;
+        private final int[] columns; // Scratch for one term's columns
+
+        CountMinSketch(int depth, int width) {
+            int size = Integer.highestOneBit(Math.max(width, 64) - 1) << 1; // Round up to a power of two
+            rows = new int[depth][size];
+            mask = size - 1;
+            columns = new int[depth];
+        }
+
+        void increment(int hash) {
+            int minimum = Integer.MAX_VALUE;
+            for (int row = 0; row < rows.length; row++) {
+                columns[row] = column(hash, row);
+                minimum = Math.min(minimum, rows[row][columns[row]]);
+            }
+            // Only counters at the minimum can be exact; raising the others would only add error
+            for (int row = 0; row < rows.length; row++) {
+                if (rows[row][columns[row]] == minimum) {
+                    rows[row][columns[row]]++;
+                }
+            }
+        }
+
+        int estimate(int hash) {
+            int minimum = Integer.MAX_VALUE;
+            for (int row = 0; row < rows.length; row++) {
+                minimum = Math.min(minimum, rows[row][column(hash, row)]);
+            }
+            return minimum;
+        }
+
+        // Independent-enough column per row from one 32-bit term hash (murmur3 finalizer)
+        private int column(int hash, int row) {
+            int h = hash + row * 0x9e3779b9;
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h & mask;
+        }
+    }
+}
@@ -0,0 +1,464 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Content-addressed cache of ranked summaries. Keys are a SHA-256 of the document content plus
+// the algorithm variant, values are the parsed sentences and their full ranking, so a request for
+// any summary length is a slice. A bounded LRU map sits in front of an optional disk tier of one
+// file per key, which survives restarts.
+//
+// The disk tier holds sentence text, so it is opt-in and bounded: entries beyond
+// summarizer.cache.disk.entries or summarizer.cache.disk.bytes are evicted least recently used
+// first (a read refreshes an entry's modification time). Callers keep text that was never a file
+// of the user's, such as editor previews and request bodies, out of it with put(key, summary, false).
+// Files other components keep in subdirectories of the tier (DocumentIndex's index/) count against
+// the same bounds and are evicted with the entries; see stored().
+//
+// System properties: summarizer.cache.disk=true to turn the disk tier on, summarizer.cache.dir
+// (default ~/.cache/document-summarizer; setting it also turns the disk tier on),
+// summarizer.cache.disk.entries (default 1024), summarizer.cache.disk.bytes (default 128MB),
+// summarizer.cache.entries=0 to turn caching off altogether (benchmarks must measure the real work).
+public class SummaryCache {
+
+    private static final int MAGIC = 0x53554d31; // "SUM1"
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024; // In chars, see RankedSummary.weight
+    private static final int DEFAULT_MAX_DISK_ENTRIES = 1024;
+    private static final long DEFAULT_MAX_DISK_BYTES = 128L * 1024 * 1024;
+
+    private static final SummaryCache SHARED = new SummaryCache(
+            Integer.getInteger("summarizer.cache.entries", DEFAULT_MAX_ENTRIES), DEFAULT_MAX_WEIGHT, defaultDirectory(),
+            Integer.getInteger("summarizer.cache.disk.entries", DEFAULT_MAX_DISK_ENTRIES),
+            Long.getLong("summarizer.cache.disk.bytes", DEFAULT_MAX_DISK_BYTES));
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Path directory; // null when the disk tier is off
+    private final int maxDiskEntries;
+    private final long maxDiskBytes;
+    private final ReentrantLock diskLock = new ReentrantLock();
+    private int diskEntries = -1; // Entries and bytes on disk as far as we know, -1 until first counted
+    private long diskBytes;
+    private final LinkedHashMap<String, RankedSummary> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: callers may be virtual threads
+    private long weight;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    SummaryCache(int maxEntries, long maxWeight, Path directory) {
+        this(maxEntries, maxWeight, directory, DEFAULT_MAX_DISK_ENTRIES, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    SummaryCache(int maxEntries, long maxWeight, Path directory, int maxDiskEntries, long maxDiskBytes) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.directory = maxEntries > 0 && maxDiskEntries > 0 && maxDiskBytes > 0 ? directory : null;
+        this.maxDiskEntries = maxDiskEntries;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    public static SummaryCache shared() {
+        return SHARED;
+    }
+
+    // Directory of the disk tier, or null when it is off
+    Path directory() {
+        return directory;
+    }
+
+    private static Path defaultDirectory() {
+        String disk = System.getProperty("summarizer.cache.disk");
+        String configured = System.getProperty("summarizer.cache.dir");
+        if ("false".equals(disk) || (configured == null && !"true".equals(disk))) {
+            return null;
+        }
+        return configured != null
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".cache", "document-summarizer");
+    }
+
+    // Key for extracted text under an algorithm variant
+    static String key(String variant, CharSequence text) {
+        MessageDigest digest = sha256(variant);
+        byte[] buffer = new byte[8192];
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int n = 0;
+            for (; n < buffer.length && i < length; i++) {
+                char c = text.charAt(i);
+                buffer[n++] = (byte) (c >>> 8);
+                buffer[n++] = (byte) c;
+            }
+            digest.update(buffer, 0, n);
+        }
+        return hex(digest.digest());
+    }
+
+    // Key for a file's raw bytes under an algorithm variant; lets a repeated file skip parsing entirely
+    static String fileKey(String variant, Path file) throws IOException {
+        MessageDigest digest = sha256(variant + "/file");
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    public RankedSummary get(String key) {
+        if (maxEntries <= 0) {
+            misses.incrementAndGet();
+            return null;
+        }
+        lock.lock();
+        try {
+            RankedSummary cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        RankedSummary stored = readFromDisk(key);
+        if (stored != null) {
+            diskHits.incrementAndGet();
+            putInMemory(key, stored);
+            return stored;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, RankedSummary summary) {
+        put(key, summary, true);
+    }
+
+    // persist=false keeps the entry in memory only, whether or not the disk tier is on
+    public void put(String key, RankedSummary summary, boolean persist) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        putInMemory(key, summary);
+        if (persist) {
+            writeToDisk(key, summary);
+        }
+    }
+
+    public String stats() {
+        lock.lock();
+        try {
+            return "memory hits " + memoryHits.get() + ", disk hits " + diskHits.get() + ", misses " + misses.get()
+                    + ", " + memory.size() + " entries in memory";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long memoryHits() {
+        return memoryHits.get();
+    }
+
+    long diskHits() {
+        return diskHits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    private void putInMemory(String key, RankedSummary summary) {
+        lock.lock();
+        try {
+            RankedSummary previous = memory.put(key, summary);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += summary.weight();
+
+            // Evict least recently used entries, but always keep the newest one
+            Iterator<RankedSummary> eldest = memory.values().iterator();
+            while (memory.size() > 1 && (memory.size() > maxEntries || weight > maxWeight)) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The entry, or null if there is none or it is damaged (a damaged entry is deleted and counts
+    // as a miss). Every count and length is checked against the file size before anything is
+    // allocated, and the ranking must be a permutation of the sentences.
+    private RankedSummary readFromDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path entry = directory.resolve(key);
+        try (InputStream file = Files.newInputStream(entry);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            long remaining = Files.size(entry) - 8;
+            if (remaining < 0 || in.readInt() != MAGIC) {
+                return damaged(entry);
+            }
+            int count = in.readInt();
+            // Each sentence takes at least a length and a ranking slot
+            if (count < 0 || count > remaining / 8) {
+                return damaged(entry);
+            }
+            remaining -= 4L * count; // The ranking
+            List<String> sentences = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                remaining -= 4;
+                if (length < 0 || length > remaining) {
+                    return damaged(entry);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                remaining -= length;
+                sentences.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            if (remaining != 0) {
+                return damaged(entry);
+            }
+            int[] ranking = new int[count];
+            boolean[] ranked = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                int index = in.readInt();
+                if (index < 0 || index >= count || ranked[index]) {
+                    return damaged(entry);
+                }
+                ranked[index] = true;
+                ranking[i] = index;
+            }
+            touch(entry);
+            return new RankedSummary(sentences, ranking);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return damaged(entry); // Rewritten by the caller's put
+        }
+    }
+
+    private static RankedSummary damaged(Path entry) {
+        try {
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            // Overwritten by the next put of the key
+        }
+        return null;
+    }
+
+    private void writeToDisk(String key, RankedSummary summary) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(summary.sentences.size());
+                for (String sentence : summary.sentences) {
+                    byte[] bytes = sentence.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                for (int index : summary.ranking) {
+                    out.writeInt(index);
+                }
+            }
+            long size = Files.size(temporary);
+            Path entry = directory.resolve(key);
+            diskLock.lock();
+            try {
+                countDisk();
+                long replaced = Files.exists(entry) ? Files.size(entry) : -1;
+                // Readers only ever see complete entries
+                try {
+                    Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (replaced < 0) {
+                    diskEntries++;
+                    diskBytes += size;
+                } else {
+                    diskBytes += size - replaced;
+                }
+                if (diskEntries > maxDiskEntries || diskBytes > maxDiskBytes) {
+                    evictDisk(entry);
+                }
+            } finally {
+                diskLock.unlock();
+            }
+        } catch (IOException e) {
+            // The disk tier is best effort; the summary is still served from memory
+        }
+    }
+
+    // Entries and bytes in the directory, counted once; other processes sharing the directory
+    // are only noticed at the next eviction, which recounts
+    private void countDisk() throws IOException {
+        if (diskEntries >= 0) {
+            return;
+        }
+        diskEntries = 0;
+        diskBytes = 0;
+        for (DiskEntry entry : listDisk()) {
+            diskEntries++;
+            diskBytes += entry.size;
+        }
+    }
+
+    // Delete least recently used entries until the tier is below 90% of both bounds; the entry
+    // just written is never evicted
+    private void evictDisk(Path newest) throws IOException {
+        List<DiskEntry> entries = listDisk();
+        entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+        diskEntries = entries.size();
+        diskBytes = 0;
+        for (DiskEntry entry : entries) {
+            diskBytes += entry.size;
+        }
+        long entryTarget = maxDiskEntries - maxDiskEntries / 10;
+        long byteTarget = maxDiskBytes - maxDiskBytes / 10;
+        for (DiskEntry entry : entries) {
+            if (diskEntries <= entryTarget && diskBytes <= byteTarget) {
+                break;
+            }
+            if (entry.path.equals(newest)) {
+                continue;
+            }
+            if (Files.deleteIfExists(entry.path)) {
+                diskEntries--;
+                diskBytes -= entry.size;
+            }
+        }
+    }
+
+    // Entries and the files in the subdirectories one level down
+    private List<DiskEntry> listDisk() throws IOException {
+        List<DiskEntry> entries = new ArrayList<>();
+        listDisk(directory, true, entries);
+        return entries;
+    }
+
+    private static void listDisk(Path directory, boolean subdirectories, List<DiskEntry> entries) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    continue; // Being written
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        entries.add(new DiskEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    } else if (attributes.isDirectory() && subdirectories) {
+                        listDisk(file, false, entries);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Evicted by another process meanwhile
+                }
+            }
+        }
+    }
+
+    // Count a file another component has just written into a subdirectory of the disk tier, and
+    // evict as put does if the tier is now over its bounds
+    void stored(Path file) {
+        if (directory == null) {
+            return;
+        }
+        diskLock.lock();
+        try {
+            boolean counted = diskEntries >= 0;
+            countDisk(); // A first count already sees the file
+            if (counted) {
+                diskEntries++;
+                diskBytes += Files.size(file);
+            }
+            if (diskEntries > maxDiskEntries || diskBytes > maxDiskBytes) {
+                evictDisk(file);
+            }
+        } catch (IOException e) {
+            // Recounted at the next eviction
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    // Refresh a file's place in the eviction order when it is read
+    static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only the eviction order suffers
+        }
+    }
+
+    private static final class DiskEntry {
+        final Path path;
+        final long size;
+        final long lastModified;
+
+        DiskEntry(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static MessageDigest sha256(String variant) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(variant.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >>> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+// Runs the app's summarizations on one background thread. A new request supersedes the
+// previous one: its Future is cancelled, which interrupts the run, and the summarizer gives up
+// at the next checkCancelled() between stages. At most one more run can wait in the queue
+// (older waiting runs are dropped), so bursts of requests never pile up work.
+//
+// The ranking of the last finished run is kept with the source it was computed for, so changing
+// only the summary length (or the selection) is a slice on the Event Dispatch Thread. Requests
+// can be debounced, to follow spinner and text changes once they pause. Each run's stage
+// breakdown (see StageMetrics) is handed over with its ranking.
+// Everything except the ranking job itself runs on the Event Dispatch Thread.
+final class SummaryScheduler {
+
+    static final int DEBOUNCE_MILLIS = 300;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), SummaryScheduler::newThread, new ThreadPoolExecutor.DiscardOldestPolicy());
+    private final Timer debounce = new Timer(DEBOUNCE_MILLIS, null);
+    private Runnable debounced;
+
+    private Future<?> running;
+    private int generation; // Bumped by every schedule() and cancel(); stale results are dropped
+
+    private Object rankedSource;
+    private RankedSummary ranked;
+
+    SummaryScheduler() {
+        debounce.setRepeats(false);
+        debounce.addActionListener(e -> {
+            Runnable request = debounced;
+            debounced = null;
+            if (request != null) {
+                request.run();
+            }
+        });
+    }
+
+    private static Thread newThread(Runnable task) {
+        Thread thread = new Thread(task, "summarizer");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // Thrown out of the summarizer when its run was superseded
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Summarization superseded");
+        }
+    }
+
+    // The ranking last computed for this source, or null if it has to be computed
+    RankedSummary ranked(Object source) {
+        return ranked != null && Objects.equals(rankedSource, source) ? ranked : null;
+    }
+
+    // Run the request once requests stop arriving for DEBOUNCE_MILLIS
+    void debounce(Runnable request) {
+        debounced = request;
+        debounce.restart();
+    }
+
+    // Rank in the background, superseding any earlier run; the callbacks run on the Event
+    // Dispatch Thread and only for the latest request
+    void schedule(Object source, Callable<RankedSummary> ranker, BiConsumer<RankedSummary, StageMetrics.Run> onRanked,
+                  Consumer<Exception> onFailed) {
+        cancel();
+        int request = generation;
+        running = executor.submit(() -> {
+            StageMetrics.Run stages = StageMetrics.beginRun();
+            try {
+                RankedSummary result = ranker.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (request == generation) {
+                        running = null;
+                        rankedSource = source;
+                        ranked = result;
+                        onRanked.accept(result, stages);
+                    }
+                });
+            } catch (CancellationException e) {
+                // Superseded; the newer request reports instead
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (request == generation) {
+                        running = null;
+                        onFailed.accept(e);
+                    }
+                });
+            } finally {
+                stages.end();
+            }
+        });
+    }
+
+    // Drop any pending or running request
+    void cancel() {
+        generation++;
+        debounced = null;
+        debounce.stop();
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+}
@@ -0,0 +1,503 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Summarization over HTTP on the JDK's built-in server. Every exchange runs on its own virtual
+// thread. As in BatchSummarizer, the CPU-heavy work is gated: PDFBox/POI parsing and
+// tokenizing/scoring each have a fixed number of permits, and at most --queue requests may wait
+// for them. Anything beyond that is turned away at once with 429 instead of queueing without
+// bound. Small plain-text requests go through a short batching window: everything that arrived
+// within it is summarized by one task on one CPU permit, and identical texts in a batch are
+// summarized once.
+//
+//   POST /summarize[?sentences=N&diverse=true&type=txt|pdf|doc|docx]   body: text or document
+//        A body without type (and without a document Content-Type) is plain text; type=txt
+//        reads it as a .txt file. Responds {"sentences":..,"summary":..,"millis":..}.
+//   GET  /stats   throughput, latency percentiles, rejections, stage occupancy and per-stage timings
+//
+// Usage: DocumentSummarizer --serve [--port 8080] [--host 127.0.0.1] [--threads N]
+//            [--parse-threads N] [--queue N] [--scoring frequency|textrank] [--idf corpus.idf]
+public class SummaryServer {
+
+    static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+    static final int SMALL_TEXT_CHARS = 16 * 1024;    // Plain text up to this size is batched
+    static final int MAX_BATCH = 32;
+    static final long BATCH_WINDOW_NANOS = 2_000_000; // How long a batch waits for more requests
+
+    private static final long RECENT_WINDOW_NANOS = 10_000_000_000L;
+
+    private final HttpServer server;
+    private final Scoring scoring;
+    private final BoundedStage parseStage; // PDFBox and POI extraction
+    private final BoundedStage cpuStage;   // Tokenizing and scoring
+    private final BlockingQueue<BatchItem> batchQueue;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private Thread batcher;
+    private volatile boolean stopping;
+    private final long startNanos = System.nanoTime();
+
+    private final LatencyStats latency = new LatencyStats(1 << 14);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedRequests = new AtomicLong();
+    private final AtomicLong sharedInBatch = new AtomicLong();
+
+    SummaryServer(InetSocketAddress address, int parseThreads, int cpuThreads, int queue, Scoring scoring)
+            throws IOException {
+        if (parseThreads < 1 || cpuThreads < 1 || queue < 0) {
+            throw new IllegalArgumentException("Thread counts must be at least 1 and the queue at least 0");
+        }
+        this.scoring = scoring;
+        this.parseStage = new BoundedStage("parse", parseThreads, queue);
+        this.cpuStage = new BoundedStage("cpu", cpuThreads, queue);
+        // As many small bodies as the CPU stage admits, so a queue of 0 still takes one per thread
+        this.batchQueue = new ArrayBlockingQueue<>(cpuThreads + queue);
+        server = HttpServer.create(address, 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/summarize", this::handleSummarize);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    void start() {
+        batcher = Thread.ofVirtual().name("summary-batcher").start(this::batchLoop);
+        server.start();
+    }
+
+    void stop() {
+        stopping = true;
+        server.stop(0);
+        if (batcher != null) {
+            batcher.interrupt();
+        }
+        failQueued(List.of());
+        stopped.countDown();
+    }
+
+    // Answer batch items that no batch will take any more: the ones the batcher was collecting
+    // and everything still queued
+    private void failQueued(List<BatchItem> collected) {
+        RequestException stopped = new RequestException(503, "Server shutting down");
+        for (BatchItem item : collected) {
+            item.result.completeExceptionally(stopped);
+        }
+        BatchItem item;
+        while ((item = batchQueue.poll()) != null) {
+            item.result.completeExceptionally(stopped);
+        }
+    }
+
+    InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    // Entry point for DocumentSummarizer --serve; runs until the process is stopped
+    static int run(String[] args) {
+        StageMetrics.trackAllocation();
+        int cores = Runtime.getRuntime().availableProcessors();
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        int port = 8080;
+        int parseThreads = Math.max(1, cores / 2);
+        int cpuThreads = cores;
+        int queue = 64;
+        String scoringMode = System.getProperty("summarizer.scoring", "frequency");
+        String idfFile = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--host":
+                        host = args[++i];
+                        break;
+                    case "--threads":
+                        cpuThreads = atLeast(1, args[++i]);
+                        break;
+                    case "--parse-threads":
+                        parseThreads = atLeast(1, args[++i]);
+                        break;
+                    case "--queue":
+                        queue = atLeast(0, args[++i]);
+                        break;
+                    case "--scoring":
+                        scoringMode = args[++i];
+                        break;
+                    case "--idf":
+                        idfFile = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: DocumentSummarizer --serve [--port 8080] [--host 127.0.0.1] [--threads N]"
+                    + " [--parse-threads N] [--queue N] [--scoring frequency|textrank] [--idf corpus.idf]");
+            return 2;
+        }
+
+        try {
+            IdfIndex idf = idfFile == null ? IdfIndex.configured() : IdfIndex.open(Paths.get(idfFile));
+            SummaryServer server = new SummaryServer(new InetSocketAddress(host, port), parseThreads, cpuThreads,
+                    queue, Scoring.of(scoringMode, idf));
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.err.println("Listening on http://" + host + ":" + server.address().getPort()
+                    + "/summarize (" + cpuThreads + " CPU and " + parseThreads + " parse permits, queue " + queue + ")");
+            server.stopped.await();
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Server failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    // Zero threads would leave every request waiting until the queue fills
+    private static int atLeast(int minimum, String value) {
+        int count = Integer.parseInt(value);
+        if (count < minimum) {
+            throw new IllegalArgumentException(value);
+        }
+        return count;
+    }
+
+    // Thrown when a stage or the batch queue is full; answered with 429
+    static final class OverloadedException extends Exception {
+        OverloadedException(String stage) {
+            super("Server busy (" + stage + " queue full), retry later");
+        }
+    }
+
+    // Bad requests, answered with their status code
+    static final class RequestException extends Exception {
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Stage<T> {
+        T run() throws Exception;
+    }
+
+    // Fixed permits plus a bounded number of waiters; whoever comes after that is rejected
+    private static final class BoundedStage {
+        final String name;
+        final Semaphore permits;
+        final int capacity;
+        final AtomicInteger admitted = new AtomicInteger();
+
+        BoundedStage(String name, int threads, int queue) {
+            this.name = name;
+            this.permits = new Semaphore(threads);
+            this.capacity = threads + queue;
+        }
+
+        <T> T run(Stage<T> work) throws Exception {
+            if (admitted.incrementAndGet() > capacity) {
+                admitted.decrementAndGet();
+                throw new OverloadedException(name);
+            }
+            try {
+                permits.acquire();
+                try {
+                    return work.run();
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                admitted.decrementAndGet();
+            }
+        }
+
+        String toJson() {
+            return "{\"admitted\":" + admitted.get() + ",\"capacity\":" + capacity + "}";
+        }
+    }
+
+    private static final class BatchItem {
+        final String text;
+        final CompletableFuture<RankedSummary> result = new CompletableFuture<>();
+
+        BatchItem(String text) {
+            this.text = text;
+        }
+    }
+
+    private void handleSummarize(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        try (exchange) {
+            try {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    throw new RequestException(405, "Use POST with the text or document as the body");
+                }
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                int sentences = parseInt(query.getOrDefault("sentences", "5"));
+                if (sentences < 1) {
+                    throw new RequestException(400, "sentences must be at least 1: " + sentences);
+                }
+                boolean diverse = query.containsKey("diverse")
+                        ? Boolean.parseBoolean(query.get("diverse")) : DiverseSelection.configured();
+                String type = documentType(query.get("type"), exchange.getRequestHeaders().getFirst("Content-Type"));
+                byte[] body = readBody(exchange.getRequestBody());
+
+                RankedSummary ranked = type == null
+                        ? rankText(new String(body, StandardCharsets.UTF_8))
+                        : rankDocument(body, type);
+                String summary = DocumentSummarizer.summarize(ranked, sentences, diverse);
+                long finish = System.nanoTime();
+                latency.record(start, finish);
+                respond(exchange, 200, "{\"sentences\":" + ranked.sentences.size()
+                        + ",\"summary\":" + Json.quote(summary)
+                        + ",\"millis\":" + String.format(Locale.ROOT, "%.3f", (finish - start) / 1e6) + "}");
+            } catch (OverloadedException e) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, error(e.getMessage()));
+            } catch (RequestException e) {
+                failed.incrementAndGet();
+                respond(exchange, e.status, error(e.getMessage()));
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                respond(exchange, 500, error(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            }
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            double uptime = (System.nanoTime() - startNanos) / 1e9;
+            LatencyStats.Snapshot snapshot = latency.snapshot(RECENT_WINDOW_NANOS);
+            long completed = latency.count();
+            respond(exchange, 200, "{\"uptimeSeconds\":" + String.format(Locale.ROOT, "%.1f", uptime)
+                    + ",\"requests\":" + requests.get()
+                    + ",\"completed\":" + completed
+                    + ",\"rejected\":" + rejected.get()
+                    + ",\"failed\":" + failed.get()
+                    + ",\"throughputPerSecond\":" + String.format(Locale.ROOT, "%.1f", completed / uptime)
+                    + ",\"recentPerSecond\":" + String.format(Locale.ROOT, "%.1f", snapshot.recentPerSecond)
+                    + ",\"latencyMillis\":" + snapshot.toJson()
+                    + ",\"batches\":" + batches.get()
+                    + ",\"batchedRequests\":" + batchedRequests.get()
+                    + ",\"sharedInBatch\":" + sharedInBatch.get()
+                    + ",\"batchQueue\":" + batchQueue.size()
+                    + ",\"parse\":" + parseStage.toJson()
+                    + ",\"cpu\":" + cpuStage.toJson()
+                    + ",\"cache\":" + Json.quote(SummaryCache.shared().stats().toString())
+                    + ",\"stages\":" + StageMetrics.toJson() + "}");
+        }
+    }
+
+    // Plain text: small bodies join a batch, larger ones take a CPU permit of their own
+    private RankedSummary rankText(String text) throws Exception {
+        if (text.length() > SMALL_TEXT_CHARS) {
+            return cpuStage.run(() -> rankCached(text));
+        }
+        BatchItem item = new BatchItem(text);
+        if (!batchQueue.offer(item)) {
+            throw new OverloadedException("batch");
+        }
+        if (stopping) {
+            failQueued(List.of()); // Queued after stop() drained the queue
+        }
+        try {
+            return item.result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private RankedSummary rankCached(String text) {
+        SummaryCache cache = SummaryCache.shared();
+        String key = SummaryCache.key(scoring.cacheVariant(), text);
+        RankedSummary ranked = cache.get(key);
+        if (ranked == null) {
+            ranked = DocumentSummarizer.rank(DocumentSummarizer.preprocessText(text), scoring);
+            cache.put(key, ranked, false); // Request bodies stay in memory, see SummaryCache
+        }
+        return ranked;
+    }
+
+    // Documents are parsed from a temporary file with the file readers; a repeated upload is a
+    // cache hit on its bytes and skips parsing
+    private RankedSummary rankDocument(byte[] body, String type) throws Exception {
+        Path file = Files.createTempFile("summary-upload", type);
+        try {
+            Files.write(file, body);
+            SummaryCache cache = SummaryCache.shared();
+            String key = SummaryCache.fileKey(scoring.cacheVariant(), file);
+            RankedSummary ranked = cache.get(key);
+            if (ranked == null) {
+                Stage<DocumentStatistics> read = () -> {
+                    try {
+                        return DocumentSummarizer.readStatistics(file.toString());
+                    } catch (IOException | RuntimeException e) {
+                        throw new RequestException(422, "Could not read the " + type + " document: " + e.getMessage());
+                    }
+                };
+                DocumentStatistics statistics = type.equals(".txt") ? cpuStage.run(read) : parseStage.run(read);
+                ranked = cpuStage.run(() -> DocumentSummarizer.rank(statistics, scoring));
+                cache.put(key, ranked, false);
+            }
+            return ranked;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Collects small text requests for up to BATCH_WINDOW_NANOS (or MAX_BATCH of them) and
+    // hands each batch to its own task, so the next batch is collected meanwhile
+    private void batchLoop() {
+        List<BatchItem> batch = List.of(); // Being collected, not yet handed to runBatch
+        try {
+            while (true) {
+                batch = new ArrayList<>(MAX_BATCH);
+                batch.add(batchQueue.take());
+                long deadline = System.nanoTime() + BATCH_WINDOW_NANOS;
+                while (batch.size() < MAX_BATCH) {
+                    BatchItem next = batchQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                List<BatchItem> collected = batch;
+                Thread.ofVirtual().start(() -> runBatch(collected));
+                batch = List.of();
+            }
+        } catch (InterruptedException e) {
+            failQueued(batch); // Server shutting down
+        }
+    }
+
+    // One CPU permit for the whole batch; identical texts are summarized once
+    private void runBatch(List<BatchItem> batch) {
+        batches.incrementAndGet();
+        batchedRequests.addAndGet(batch.size());
+        try {
+            cpuStage.run(() -> {
+                Map<String, RankedSummary> done = new HashMap<>();
+                for (BatchItem item : batch) {
+                    RankedSummary ranked = done.get(item.text);
+                    if (ranked != null) {
+                        sharedInBatch.incrementAndGet();
+                    } else {
+                        try {
+                            ranked = rankCached(item.text);
+                        } catch (RuntimeException e) {
+                            item.result.completeExceptionally(e);
+                            continue;
+                        }
+                        done.put(item.text, ranked);
+                    }
+                    item.result.complete(ranked);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            for (BatchItem item : batch) {
+                item.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // File type from ?type= or the Content-Type header; null for plain text
+    private static String documentType(String type, String contentType) throws RequestException {
+        if (type != null) {
+            String extension = type.startsWith(".") ? type.toLowerCase() : "." + type.toLowerCase();
+            if (!DocumentSummarizer.SUPPORTED_TYPES.contains(extension)) {
+                throw new RequestException(415, "Unsupported type: " + type);
+            }
+            return extension;
+        }
+        if (contentType == null) {
+            return null;
+        }
+        String mime = contentType.split(";")[0].trim().toLowerCase();
+        switch (mime) {
+            case "application/pdf":
+                return ".pdf";
+            case "application/msword":
+                return ".doc";
+            case "application/vnd.openxmlformats-officedocument.wordprocessingml.document":
+                return ".docx";
+            default:
+                return null;
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException, RequestException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new RequestException(413, "Body larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        return body;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int parseInt(String value) throws RequestException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Not a number: " + value);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.Arrays;
+
+// Interns words as dense int term IDs and keeps a primitive int count per term. Lookups take a
+// char slice and the term text lives in one shared char pool, so neither interning nor counting
+// allocates per token and a term costs a few ints plus its chars instead of a String, a map
+// entry and a boxed Integer.
+final class TermDictionary {
+
+    private static final int INITIAL_CAPACITY = 1024; // Must be a power of two
+
+    // A reused dictionary that grew past this many slots is shrunk again by clear()
+    private static final int MAX_RETAINED_CAPACITY = 1 << 22;
+
+    private static final ThreadLocal<TermDictionary> REUSABLE = ThreadLocal.withInitial(TermDictionary::new);
+
+    private int[] slots;     // Open-addressing table of term ID + 1, 0 marks an empty slot
+    private int[] hashes;    // Hash of each term, indexed by term ID
+    private int[] offsets;   // Start of each term in pool; term ID + 1 holds its end
+    private int[] counts;    // Frequency of each term, indexed by term ID
+    private char[] pool;     // Characters of all terms, back to back
+    private int size;
+
+    TermDictionary() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // Cleared dictionary owned by the calling thread, for runs whose results do not escape it
+    static TermDictionary reusable() {
+        TermDictionary dictionary = REUSABLE.get();
+        dictionary.clear();
+        return dictionary;
+    }
+
+    private void allocate(int capacity) {
+        slots = new int[capacity];
+        hashes = new int[capacity / 2];
+        offsets = new int[capacity / 2 + 1];
+        counts = new int[capacity / 2];
+        pool = new char[capacity * 4];
+    }
+
+    // Remove all terms but keep the arrays for the next run
+    void clear() {
+        if (slots.length > MAX_RETAINED_CAPACITY) {
+            allocate(INITIAL_CAPACITY);
+        } else {
+            Arrays.fill(slots, 0);
+            clearCounts();
+        }
+        size = 0;
+    }
+
+    void clearCounts() {
+        Arrays.fill(counts, 0, size, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    String term(int id) {
+        return new String(pool, offsets[id], offsets[id + 1] - offsets[id]);
+    }
+
+    int termLength(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    // Hash of the term's characters; the same term has the same hash in every dictionary
+    int hash(int id) {
+        return hashes[id];
+    }
+
+    int count(int id) {
+        return counts[id];
+    }
+
+    void increment(int id) {
+        counts[id]++;
+    }
+
+    void addCount(int id, int delta) {
+        counts[id] += delta;
+    }
+
+    // Return the ID of the word in chars[offset, offset + length), adding it if it is new
+    int intern(char[] chars, int offset, int length) {
+        int hash = hash(chars, offset, length);
+        int slot = findSlot(chars, offset, length, hash);
+        int entry = slots[slot];
+        return entry != 0 ? entry - 1 : add(chars, offset, length, hash, slot);
+    }
+
+    // Return the ID of the term, adding it if it is new
+    int intern(String term) {
+        return intern(term.toCharArray(), 0, term.length());
+    }
+
+    // Return the ID of the term, or -1 if it has not been seen
+    int find(String term) {
+        char[] chars = term.toCharArray();
+        int entry = slots[findSlot(chars, 0, chars.length, hash(chars, 0, chars.length))];
+        return entry - 1;
+    }
+
+    // Add every term of the other dictionary (with its count) and return the mapping from its IDs to ours
+    int[] mergeFrom(TermDictionary other) {
+        int[] remap = new int[other.size];
+        for (int id = 0; id < other.size; id++) {
+            int start = other.offsets[id];
+            remap[id] = intern(other.pool, start, other.offsets[id + 1] - start);
+            counts[remap[id]] += other.counts[id];
+        }
+        return remap;
+    }
+
+    // Slot holding the word, or the empty slot where it would be inserted
+    private int findSlot(char[] chars, int offset, int length, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(id, chars, offset, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int add(char[] chars, int offset, int length, int hash, int slot) {
+        int id = size++;
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            offsets = Arrays.copyOf(offsets, id * 2 + 1);
+            counts = Arrays.copyOf(counts, id * 2);
+        }
+        int start = offsets[id];
+        if (start + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, start + length));
+        }
+        System.arraycopy(chars, offset, pool, start, length);
+        offsets[id + 1] = start + length;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) { // Keep the load factor at or below 0.5
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        int[] newSlots = new int[slots.length * 2];
+        int mask = newSlots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = id + 1;
+        }
+        slots = newSlots;
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h ^ (h >>> 16); // Spread high bits into the masked low bits
+    }
+
+    private boolean matches(int id, char[] chars, int offset, int length) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (pool[start + i] != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Term names in the on-disk indexes (IdfIndex, DocumentIndex): UTF-8, sorted by unsigned byte
+// order, so a lookup is a binary search comparing bytes straight from the mapping. Byte order of
+// UTF-8 is code point order, which is not String order once surrogate pairs appear; sorting and
+// searching both use bytes, so the two always agree.
+final class TermNames {
+
+    private TermNames() {
+    }
+
+    // Every term of the dictionary in UTF-8, indexed by term ID
+    static byte[][] encode(TermDictionary dictionary) {
+        byte[][] names = new byte[dictionary.size()][];
+        for (int id = 0; id < names.length; id++) {
+            names[id] = encode(dictionary.term(id));
+        }
+        return names;
+    }
+
+    static byte[] encode(CharSequence term) {
+        int length = term.length();
+        byte[] ascii = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = term.charAt(i);
+            if (c > 0x7f) {
+                return term.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            ascii[i] = (byte) c;
+        }
+        return ascii;
+    }
+
+    // Term IDs in the order the names are stored
+    static Integer[] sortedOrder(byte[][] names) {
+        Integer[] order = new Integer[names.length];
+        for (int id = 0; id < order.length; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(names[a], names[b]));
+        return order;
+    }
+
+    // The stored name in [start, end) of the buffer against the term, in unsigned byte order.
+    // Absolute reads only, so one mapping is safe to share between threads. ASCII is compared
+    // char by char; only a term with other characters is encoded, from its first one on.
+    static int compare(ByteBuffer buffer, int start, int end, CharSequence term) {
+        int length = term.length();
+        for (int i = 0; i < length; i++) {
+            char c = term.charAt(i);
+            if (c > 0x7f) {
+                return compare(buffer, start + i, end, encode(term.subSequence(i, length)));
+            }
+            if (start + i == end) {
+                return -1;
+            }
+            int difference = (buffer.get(start + i) & 0xff) - c;
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return (end - start) - length;
+    }
+
+    private static int compare(ByteBuffer buffer, int start, int end, byte[] key) {
+        int length = end - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(start + i) & 0xff) - (key[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+}
@@ -0,0 +1,312 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Graph-based sentence ranking: PageRank over a sentence similarity graph. Two sentences are
+// linked by the counted terms they share, weighted as in TextRank by
+// overlap / (log |Si| + log |Sj|). Edges never come from comparing all pairs: they are found
+// through a term -> sentences inverted index, and each sentence is only linked through a term to
+// the MAX_TERM_NEIGHBOURS sentences nearest to it in that term's postings, so a term found in
+// every sentence costs O(n) edges instead of O(n^2). The graph is kept as a CSR matrix of
+// primitive arrays, and both graph building and the power iteration run on the fork/join pool.
+final class TextRank {
+
+    static final double DAMPING = 0.85;
+    static final int MAX_ITERATIONS = 100;
+    static final double TOLERANCE = 1e-7; // Stop when the scores move less than this in total (L1)
+    static final int MAX_TERM_NEIGHBOURS = 64;
+
+    private static final int MIN_SEGMENT_SENTENCES = 2048;
+
+    private TextRank() {
+    }
+
+    // TextRank score per sentence; only terms with counted[term] set link sentences
+    static double[] scores(DocumentStatistics statistics, boolean[] counted) {
+        return scores(statistics, counted, ForkJoinPool.commonPool());
+    }
+
+    static double[] scores(DocumentStatistics statistics, boolean[] counted, ForkJoinPool pool) {
+        int sentences = statistics.sentenceTerms.size();
+        if (sentences == 0) {
+            return new double[0];
+        }
+        int segment = Math.max(MIN_SEGMENT_SENTENCES, sentences / (pool.getParallelism() * 4) + 1);
+        Graph graph = Graph.build(statistics.sentenceTerms, counted, statistics.dictionary.size(), pool, segment);
+        return graph.pageRank(pool, segment);
+    }
+
+    // Symmetric similarity graph in CSR form. Row i lists the neighbours of sentence i; weights
+    // are already divided by the neighbour's total edge weight, ready for the power iteration.
+    private static final class Graph {
+        final int size;
+        final int[] rowStart;
+        final int[] columns;
+        final double[] weights;
+        final boolean[] dangling; // Sentences without any edge
+
+        private Graph(int size, int[] rowStart, int[] columns, double[] weights, boolean[] dangling) {
+            this.size = size;
+            this.rowStart = rowStart;
+            this.columns = columns;
+            this.weights = weights;
+            this.dangling = dangling;
+        }
+
+        static Graph build(List<int[]> sentenceTerms, boolean[] counted, int vocabulary, ForkJoinPool pool, int segment) {
+            int sentences = sentenceTerms.size();
+            Postings postings = Postings.build(sentenceTerms, counted, vocabulary);
+
+            // Rows are built in independent segments, then concatenated
+            double[] logLength = new double[sentences];
+            for (int i = 0; i < sentences; i++) {
+                logLength[i] = Math.log(1.0 + sentenceTerms.get(i).length);
+            }
+            int segments = (sentences + segment - 1) / segment;
+            Rows[] parts = new Rows[segments];
+            pool.invoke(new RowTask(postings, logLength, parts, segment, 0, segments));
+
+            int[] rowStart = new int[sentences + 1];
+            int edges = 0;
+            for (Rows part : parts) {
+                for (int i = 0; i < part.rowLengths.length; i++) {
+                    rowStart[part.from + i] = edges;
+                    edges += part.rowLengths[i];
+                }
+            }
+            rowStart[sentences] = edges;
+            int[] columns = new int[edges];
+            double[] weights = new double[edges];
+            for (Rows part : parts) {
+                int start = rowStart[part.from];
+                System.arraycopy(part.columns, 0, columns, start, part.edges);
+                System.arraycopy(part.weights, 0, weights, start, part.edges);
+            }
+
+            // Normalize every edge by the total weight of the sentence it comes from
+            double[] totals = new double[sentences];
+            boolean[] dangling = new boolean[sentences];
+            for (int i = 0; i < sentences; i++) {
+                double total = 0.0;
+                for (int e = rowStart[i]; e < rowStart[i + 1]; e++) {
+                    total += weights[e];
+                }
+                totals[i] = total;
+                dangling[i] = total == 0.0;
+            }
+            for (int e = 0; e < edges; e++) {
+                weights[e] /= totals[columns[e]];
+            }
+            return new Graph(sentences, rowStart, columns, weights, dangling);
+        }
+
+        // Weighted PageRank by power iteration; rank from dangling sentences is spread evenly
+        double[] pageRank(ForkJoinPool pool, int segment) {
+            double[] rank = new double[size];
+            double[] next = new double[size];
+            Arrays.fill(rank, 1.0 / size);
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+                double danglingRank = 0.0;
+                for (int i = 0; i < size; i++) {
+                    if (dangling[i]) {
+                        danglingRank += rank[i];
+                    }
+                }
+                double base = (1.0 - DAMPING) / size + DAMPING * danglingRank / size;
+                double change = pool.invoke(new IterationTask(this, rank, next, base, 0, size, segment));
+                double[] swap = rank;
+                rank = next;
+                next = swap;
+                if (change < TOLERANCE) {
+                    break;
+                }
+            }
+            return rank;
+        }
+    }
+
+    // Term -> sentences inverted index in CSR form, over distinct counted terms per sentence.
+    // position[k] is where the k-th entry of sentenceTerm sits in its term's postings.
+    private static final class Postings {
+        final int[] sentenceStart;
+        final int[] sentenceTerm;
+        final int[] position;
+        final int[] termStart;
+        final int[] sentences;
+
+        private Postings(int[] sentenceStart, int[] sentenceTerm, int[] position, int[] termStart, int[] sentences) {
+            this.sentenceStart = sentenceStart;
+            this.sentenceTerm = sentenceTerm;
+            this.position = position;
+            this.termStart = termStart;
+            this.sentences = sentences;
+        }
+
+        static Postings build(List<int[]> sentenceTerms, boolean[] counted, int vocabulary) {
+            int count = sentenceTerms.size();
+            int[] lastSeen = new int[vocabulary];
+            int[] sentenceStart = new int[count + 1];
+            int[] sentenceTerm = new int[16];
+            int[] termStart = new int[vocabulary + 1];
+            int entries = 0;
+            for (int i = 0; i < count; i++) {
+                sentenceStart[i] = entries;
+                for (int term : sentenceTerms.get(i)) {
+                    if (counted[term] && lastSeen[term] != i + 1) {
+                        lastSeen[term] = i + 1;
+                        if (entries == sentenceTerm.length) {
+                            sentenceTerm = Arrays.copyOf(sentenceTerm, entries * 2);
+                        }
+                        sentenceTerm[entries++] = term;
+                        termStart[term + 1]++;
+                    }
+                }
+            }
+            sentenceStart[count] = entries;
+            for (int t = 0; t < vocabulary; t++) {
+                termStart[t + 1] += termStart[t];
+            }
+
+            // Sentences are visited in order, so every postings list comes out sorted
+            int[] fill = Arrays.copyOf(termStart, vocabulary);
+            int[] sentences = new int[entries];
+            int[] position = new int[entries];
+            for (int i = 0; i < count; i++) {
+                for (int k = sentenceStart[i]; k < sentenceStart[i + 1]; k++) {
+                    int slot = fill[sentenceTerm[k]]++;
+                    sentences[slot] = i;
+                    position[k] = slot;
+                }
+            }
+            return new Postings(sentenceStart, Arrays.copyOf(sentenceTerm, entries), position, termStart, sentences);
+        }
+    }
+
+    // Edges of the rows [from, from + rowLengths.length), back to back
+    private static final class Rows {
+        final int from;
+        final int[] rowLengths;
+        int[] columns = new int[64];
+        double[] weights = new double[64];
+        int edges;
+
+        Rows(int from, int rows) {
+            this.from = from;
+            this.rowLengths = new int[rows];
+        }
+
+        void add(int column, double weight) {
+            if (edges == columns.length) {
+                columns = Arrays.copyOf(columns, edges * 2);
+                weights = Arrays.copyOf(weights, edges * 2);
+            }
+            columns[edges] = column;
+            weights[edges++] = weight;
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private final Postings postings;
+        private final double[] logLength;
+        private final Rows[] parts;
+        private final int segment;
+        private final int from;
+        private final int to;
+
+        RowTask(Postings postings, double[] logLength, Rows[] parts, int segment, int from, int to) {
+            this.postings = postings;
+            this.logLength = logLength;
+            this.parts = parts;
+            this.segment = segment;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(postings, logLength, parts, segment, from, middle),
+                          new RowTask(postings, logLength, parts, segment, middle, to));
+                return;
+            }
+            int first = from * segment;
+            int last = Math.min(first + segment, logLength.length);
+            Rows rows = new Rows(first, last - first);
+
+            // Sparse accumulator of shared terms per neighbour, reset after every row
+            int[] overlap = new int[logLength.length];
+            int[] touched = new int[64];
+            int reach = MAX_TERM_NEIGHBOURS / 2;
+            for (int i = first; i < last; i++) {
+                int touchedCount = 0;
+                for (int k = postings.sentenceStart[i]; k < postings.sentenceStart[i + 1]; k++) {
+                    int term = postings.sentenceTerm[k];
+                    int low = Math.max(postings.termStart[term], postings.position[k] - reach);
+                    int high = Math.min(postings.termStart[term + 1], postings.position[k] + reach + 1);
+                    for (int p = low; p < high; p++) {
+                        int j = postings.sentences[p];
+                        if (j != i && overlap[j]++ == 0) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = j;
+                        }
+                    }
+                }
+                int before = rows.edges;
+                for (int t = 0; t < touchedCount; t++) {
+                    int j = touched[t];
+                    rows.add(j, overlap[j] / (logLength[i] + logLength[j]));
+                    overlap[j] = 0;
+                }
+                rows.rowLengths[i - first] = rows.edges - before;
+            }
+            parts[from] = rows;
+        }
+    }
+
+    // One power iteration step over the rows [from, to); returns the L1 change of their scores
+    private static final class IterationTask extends RecursiveTask<Double> {
+        private final Graph graph;
+        private final double[] rank;
+        private final double[] next;
+        private final double base;
+        private final int from;
+        private final int to;
+        private final int segment;
+
+        IterationTask(Graph graph, double[] rank, double[] next, double base, int from, int to, int segment) {
+            this.graph = graph;
+            this.rank = rank;
+            this.next = next;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= segment) {
+                double change = 0.0;
+                for (int i = from; i < to; i++) {
+                    double sum = 0.0;
+                    for (int e = graph.rowStart[i]; e < graph.rowStart[i + 1]; e++) {
+                        sum += graph.weights[e] * rank[graph.columns[e]];
+                    }
+                    next[i] = base + DAMPING * sum;
+                    change += Math.abs(next[i] - rank[i]);
+                }
+                return change;
+            }
+            int middle = (from + to) >>> 1;
+            IterationTask left = new IterationTask(graph, rank, next, base, from, middle, segment);
+            left.fork();
+            double right = new IterationTask(graph, rank, next, base, middle, to, segment).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -1,36 +1,46 @@
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
 import javax.swing.JSplitPane;
 import javax.swing.JTextArea;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 public class TextSummarizerAppWithLineWrap {
 
+    // Algorithm variant in summary cache keys; change it whenever scoring or selection changes
+    private static final String CACHE_VARIANT = Language.cacheVariant("app/frequency/v1");
+
+    // Files above this size are shown read-only through a PagedTextModel instead of a JTextArea
+    private static final long LARGE_FILE_BYTES = 8L * 1024 * 1024;
+
     private JFrame frame;
     private JTextArea originalTextArea;
     private JTextArea summaryTextArea;
@@ -38,8 +48,28 @@ public class TextSummarizerAppWithLineWrap {
     private JButton summarizeButton;
     private JButton openFileButton;
     private JSpinner summaryLengthSpinner;
+    private JCheckBox liveSummaryCheckBox;
+    private JCheckBox skipRepeatsCheckBox;
+    private JScrollPane originalScrollPane;
+    private JProgressBar loadProgressBar;
+    private JButton cancelLoadButton;
+
+    // File loading runs in a SwingWorker; a large file stays mapped and is only paged into view
+    private SwingWorker<LoadedFile, Void> fileLoader;
+    private PagedTextModel mappedText; // Non-null while a large file is shown
+
+    // Live summary: scores kept current by document edits, refreshed shortly after typing pauses
+    private IncrementalSummarizer liveSummarizer;
+    private Timer liveSummaryTimer;
+
+    // Background summarization; after the first summary, length, selection and text changes
+    // refresh it as a preview, reusing the ranking when the text did not change
+    private final SummaryScheduler scheduler = new SummaryScheduler();
+    private long textVersion; // Bumped on every edit of the original text area
+    private boolean previewActive;
 
     public static void main(String[] args) {
+        StageMetrics.trackAllocation(); // Shown in the status bar's stage breakdown
         SwingUtilities.invokeLater(() -> new TextSummarizerAppWithLineWrap().createAndShowGUI());
     }
 
@@ -62,6 +92,7 @@ public class TextSummarizerAppWithLineWrap {
         originalTextArea.setMargin(new Insets(10, 10, 10, 10)); // Set margin inside the original text area
         originalTextArea.setLineWrap(true); // Enable line wrapping
         originalTextArea.setWrapStyleWord(true); // Wrap at word boundaries
+        originalTextArea.getDocument().addDocumentListener(textChangeTracker);
 
         summaryTextArea = new JTextArea();
         summaryTextArea.setEditable(false); // Summary area is not editable
@@ -100,6 +131,19 @@ public class TextSummarizerAppWithLineWrap {
         summaryLengthSpinner.setFont(customFont);
         summaryLengthSpinner.setToolTipText("Select number of summary sentences");
 
+        // Live summary toggle
+        liveSummaryCheckBox = new JCheckBox("Live Summary");
+        liveSummaryCheckBox.setFont(customFont);
+        liveSummaryCheckBox.setToolTipText("Update the summary while the text is edited");
+        liveSummaryCheckBox.addActionListener(e -> setLiveSummary(liveSummaryCheckBox.isSelected()));
+        summaryLengthSpinner.addChangeListener(e -> refreshPreview());
+
+        // Near-duplicate filtering toggle
+        skipRepeatsCheckBox = new JCheckBox("Skip Repeats", DiverseSelection.configured());
+        skipRepeatsCheckBox.setFont(customFont);
+        skipRepeatsCheckBox.setToolTipText("Leave out sentences that nearly repeat one already in the summary");
+        skipRepeatsCheckBox.addActionListener(e -> refreshPreview());
+
         // Label for spinner
         JLabel spinnerLabel = new JLabel("Summary Length:");
         spinnerLabel.setFont(customFont);
@@ -110,6 +154,8 @@ public class TextSummarizerAppWithLineWrap {
         JPanel spinnerPanel = new JPanel();
         spinnerPanel.add(spinnerLabel);
         spinnerPanel.add(summaryLengthSpinner);
+        spinnerPanel.add(liveSummaryCheckBox);
+        spinnerPanel.add(skipRepeatsCheckBox);
         controlPanel.add(spinnerPanel, BorderLayout.WEST);
 
         JPanel buttonPanel = new JPanel();
@@ -118,8 +164,27 @@ public class TextSummarizerAppWithLineWrap {
         controlPanel.add(buttonPanel, BorderLayout.EAST);
         controlPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
+        // Loading progress, shown while a file is read
+        loadProgressBar = new JProgressBar(0, 100);
+        loadProgressBar.setStringPainted(true);
+        loadProgressBar.setVisible(false);
+        cancelLoadButton = new JButton("Cancel");
+        cancelLoadButton.setFont(customFont);
+        cancelLoadButton.setVisible(false);
+        cancelLoadButton.addActionListener(e -> {
+            if (fileLoader != null) {
+                fileLoader.cancel(true);
+            }
+        });
+        JPanel statusPanel = new JPanel(new BorderLayout(10, 0));
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        JPanel loadPanel = new JPanel();
+        loadPanel.add(loadProgressBar);
+        loadPanel.add(cancelLoadButton);
+        statusPanel.add(loadPanel, BorderLayout.EAST);
+
         // Add scroll panes for the text areas
-        JScrollPane originalScrollPane = new JScrollPane(originalTextArea);
+        originalScrollPane = new JScrollPane(originalTextArea);
         originalScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         originalScrollPane.setBorder(BorderFactory.createTitledBorder("Original Text"));
 
@@ -137,11 +202,89 @@ public class TextSummarizerAppWithLineWrap {
         // Add components to frame
         frame.add(controlPanel, BorderLayout.NORTH);
         frame.add(splitPane, BorderLayout.CENTER);
-        frame.add(statusLabel, BorderLayout.SOUTH);
+        frame.add(statusPanel, BorderLayout.SOUTH);
 
         frame.setVisible(true);
     }
 
+    // Attach or detach the incremental summarizer on the original text
+    private void setLiveSummary(boolean enabled) {
+        if (enabled) {
+            liveSummarizer = new IncrementalSummarizer(originalTextArea.getDocument());
+            liveSummarizer.attach();
+            liveSummaryTimer = new Timer(250, e -> refreshLiveSummary());
+            liveSummaryTimer.setRepeats(false);
+            originalTextArea.getDocument().addDocumentListener(liveSummaryTrigger);
+            summarizeButton.setEnabled(false);
+            scheduler.cancel();
+            previewActive = false;
+            refreshLiveSummary();
+        } else if (liveSummarizer != null) {
+            originalTextArea.getDocument().removeDocumentListener(liveSummaryTrigger);
+            liveSummarizer.detach();
+            liveSummarizer = null;
+            liveSummaryTimer.stop();
+            liveSummaryTimer = null;
+            summarizeButton.setEnabled(true);
+        }
+    }
+
+    private void refreshLiveSummary() {
+        int summaryLength = (Integer) summaryLengthSpinner.getValue();
+        summaryTextArea.setText(liveSummarizer.summary(summaryLength, skipRepeatsCheckBox.isSelected()));
+        statusLabel.setText("Live summary of " + liveSummarizer.sentenceCount() + " sentences.");
+    }
+
+    // Restarts the refresh timer on every edit so the summary follows once typing pauses
+    private final DocumentListener liveSummaryTrigger = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            liveSummaryTimer.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            liveSummaryTimer.restart();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+        }
+    };
+
+    // Tracks text versions for ranking reuse and keeps a shown summary following the text
+    private final DocumentListener textChangeTracker = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            textChanged();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            textChanged();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+        }
+    };
+
+    private void textChanged() {
+        textVersion++;
+        if (previewActive && liveSummarizer == null) {
+            requestSummary(false); // Debounces the ranking run itself
+        }
+    }
+
+    // Spinner or selection changed: slice the kept ranking, or debounce a new run
+    private void refreshPreview() {
+        if (liveSummarizer != null) {
+            refreshLiveSummary();
+        } else if (previewActive) {
+            requestSummary(false);
+        }
+    }
+
     // Action listener for opening a file
     private class OpenFileAction implements ActionListener {
         @Override
@@ -149,149 +292,342 @@ public class TextSummarizerAppWithLineWrap {
             JFileChooser fileChooser = new JFileChooser();
             int returnValue = fileChooser.showOpenDialog(frame);
             if (returnValue == JFileChooser.APPROVE_OPTION) {
-                File selectedFile = fileChooser.getSelectedFile();
+                loadFile(fileChooser.getSelectedFile());
+            }
+        }
+    }
+
+    // A file read by the loader: small files as text for the editor, large ones only mapped
+    private static final class LoadedFile {
+        final PagedTextModel model;
+        final String text; // null for large files
+        final StageMetrics.Run stages;
+
+        LoadedFile(PagedTextModel model, String text, StageMetrics.Run stages) {
+            this.model = model;
+            this.text = text;
+            this.stages = stages;
+        }
+    }
+
+    // Read the file off the Event Dispatch Thread, with progress and cancel
+    private void loadFile(File selectedFile) {
+        if (fileLoader != null) {
+            fileLoader.cancel(true);
+        }
+        scheduler.cancel();
+        previewActive = false;
+        statusLabel.setText("Processing file: " + selectedFile.getName());
+        loadProgressBar.setValue(0);
+        loadProgressBar.setVisible(true);
+        cancelLoadButton.setVisible(true);
+        summarizeButton.setEnabled(false);
+
+        SwingWorker<LoadedFile, Void> loader = new SwingWorker<>() {
+            @Override
+            protected LoadedFile doInBackground() throws IOException {
+                StageMetrics.Run stages = StageMetrics.beginRun();
                 try {
-                    statusLabel.setText("Processing file: " + selectedFile.getName());
-                    String text = readFile(selectedFile);
-                    originalTextArea.setText(text); // Load file content into the original text area
-                    statusLabel.setText("File loaded successfully.");
-                } catch (IOException ioException) {
-                    statusLabel.setText("Error reading file: " + ioException.getMessage());
-                } catch (Exception exception) {
-                    statusLabel.setText("Error: " + exception.getMessage());
+                    StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.READ).bytes(selectedFile.length());
+                    PagedTextModel model = PagedTextModel.open(selectedFile.toPath(), this::setProgress);
+                    String text = model.byteSize() > LARGE_FILE_BYTES ? null : model.text();
+                    timer.end();
+                    return new LoadedFile(model, text, stages);
+                } finally {
+                    stages.end();
                 }
             }
+
+            @Override
+            protected void done() {
+                if (fileLoader != this) {
+                    return; // Replaced by a newer load
+                }
+                fileLoader = null;
+                loadProgressBar.setVisible(false);
+                cancelLoadButton.setVisible(false);
+                summarizeButton.setEnabled(liveSummarizer == null);
+                try {
+                    LoadedFile loaded = get();
+                    showFile(loaded);
+                    statusLabel.setText("File loaded successfully (" + loaded.stages + ").");
+                } catch (CancellationException | InterruptedException exception) {
+                    statusLabel.setText("Loading cancelled.");
+                } catch (ExecutionException exception) {
+                    Throwable cause = exception.getCause();
+                    if (cause instanceof InterruptedIOException) {
+                        statusLabel.setText("Loading cancelled.");
+                    } else if (cause instanceof IOException) {
+                        statusLabel.setText("Error reading file: " + cause.getMessage());
+                    } else {
+                        statusLabel.setText("Error: " + cause.getMessage());
+                    }
+                }
+            }
+        };
+        loader.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                loadProgressBar.setValue((Integer) event.getNewValue());
+            }
+        });
+        fileLoader = loader;
+        loader.execute();
+    }
+
+    // Small files go into the editable text area; large ones into a virtualized read-only view
+    private void showFile(LoadedFile loaded) {
+        if (loaded.text != null) {
+            mappedText = null;
+            originalScrollPane.setViewportView(originalTextArea);
+            liveSummaryCheckBox.setEnabled(true);
+            originalTextArea.setText(loaded.text); // Load file content into the original text area
+            return;
+        }
+
+        // Live summaries follow edits of the text area, which a mapped file does not have
+        if (liveSummarizer != null) {
+            liveSummaryCheckBox.setSelected(false);
+            setLiveSummary(false);
         }
+        liveSummaryCheckBox.setEnabled(false);
+        originalTextArea.setText("");
+
+        mappedText = loaded.model;
+        JList<String> view = new JList<>(mappedText);
+        view.setFont(originalTextArea.getFont());
+        // Fixed cell sizes let the list lay out and paint only the rows in view
+        FontMetrics metrics = view.getFontMetrics(view.getFont());
+        view.setFixedCellHeight(metrics.getHeight());
+        view.setFixedCellWidth(metrics.charWidth('n') * PagedTextModel.ROW_BYTES);
+        originalScrollPane.setViewportView(view);
     }
 
     // Action listener for summarizing text
     private class SummarizeTextAction implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            String originalText = originalTextArea.getText(); // Get the text from the original text area
-            if (originalText.isEmpty()) {
-                statusLabel.setText("Please enter or load some text to summarize.");
-                return;
-            }
-
-            int summaryLength = (Integer) summaryLengthSpinner.getValue();
-            summarizeButton.setEnabled(false);
-            statusLabel.setText("Summarizing...");
-
-            // Perform summarization in a separate thread to keep UI responsive
-            new Thread(() -> {
-                String summary = summarize(originalText, summaryLength);
-                SwingUtilities.invokeLater(() -> {
-                    summaryTextArea.setText(summary);
-                    statusLabel.setText("Text summarized successfully.");
-                    summarizeButton.setEnabled(true);
-                });
-            }).start();
+            previewActive = true;
+            requestSummary(true);
         }
     }
 
-    // Method to read file content
-    private String readFile(File file) throws IOException {
-        StringBuilder text = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                text.append(line).append(" ");
-            }
+    // Show the summary of the current text. A ranking kept for it is sliced right away; otherwise
+    // ranking runs on the scheduler (debounced unless immediate) and supersedes any earlier run.
+    private void requestSummary(boolean immediate) {
+        PagedTextModel mapped = mappedText;
+        Object source = mapped != null ? mapped : Long.valueOf(textVersion);
+        RankedSummary kept = scheduler.ranked(source);
+        if (kept != null) {
+            scheduler.cancel();
+            showSummary(kept, null);
+            return;
+        }
+        if (!immediate) {
+            scheduler.debounce(() -> requestSummary(true));
+            return;
+        }
+
+        String originalText = mapped != null ? null : originalTextArea.getText(); // Get the text from the original text area
+        if (mapped == null && originalText.trim().isEmpty()) {
+            scheduler.cancel();
+            statusLabel.setText("Please enter or load some text to summarize.");
+            return;
         }
-        return text.toString().trim();
+        statusLabel.setText("Summarizing...");
+        scheduler.schedule(source,
+                () -> mapped != null ? rankCached(mapped) : rankCached(originalText),
+                this::showSummary,
+                error -> statusLabel.setText("Error: " + error.getMessage()));
+    }
+
+    // Slice a ranking with the current length and selection. The status bar shows where the time
+    // went: the ranking run's stages (none when a kept ranking is reused) and the selection.
+    private void showSummary(RankedSummary ranked, StageMetrics.Run rankStages) {
+        int summaryLength = (Integer) summaryLengthSpinner.getValue();
+        boolean skipRepeats = skipRepeatsCheckBox.isSelected();
+        StageMetrics.Run selectStages = StageMetrics.beginRun();
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.SELECT);
+        String summary = ranked.isEmpty() ? "" : buildSummary(ranked.select(summaryLength, skipRepeats));
+        timer.end();
+        selectStages.end();
+        summaryTextArea.setText(summary);
+        String stages = rankStages == null || rankStages.isEmpty()
+                ? "ranking reused, " + selectStages
+                : rankStages + ", " + selectStages;
+        statusLabel.setText("Text summarized successfully (" + stages + ").");
     }
 
     // Summarization method with optimizations
     private String summarize(String text, int summarySentencesCount) {
+        return summarize(text, summarySentencesCount, DiverseSelection.configured());
+    }
+
+    // With diverse set, sentences that nearly repeat one already chosen are skipped
+    private String summarize(String text, int summarySentencesCount, boolean diverse) {
         if (text == null || text.trim().isEmpty()) return "";
 
-        String[] sentences = SENTENCE_SPLIT_PATTERN.split(text);
-        if (sentences.length == 0) return "";
+        RankedSummary ranked = rankCached(text);
+        if (ranked.isEmpty()) return "";
 
-        // Initialize word frequency map
-        Map<String, Integer> wordFrequency = new HashMap<>();
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.SELECT);
+        String summary = buildSummary(ranked.select(summarySentencesCount, diverse));
+        timer.end();
+        return summary;
+    }
 
-        // First pass: Calculate word frequencies
-        for (String sentence : sentences) {
-            String cleaned = cleanText(sentence);
-            if (cleaned.isEmpty()) continue;
-            String[] words = cleaned.split(WORD_SPLIT_PATTERN);
-            for (String word : words) {
-                if (word.isEmpty()) continue;
-                wordFrequency.put(word, wordFrequency.getOrDefault(word, 0) + 1);
-            }
+    // Summarizing the same text at another length only slices the cached ranking
+    private RankedSummary rankCached(String text) {
+        SummaryCache cache = SummaryCache.shared();
+        String key = SummaryCache.key(CACHE_VARIANT, text);
+        RankedSummary ranked = cache.get(key);
+        if (ranked == null) {
+            SummaryScheduler.checkCancelled();
+            ranked = rank(text);
+            // Editor text (every preview of every edit) never goes to the disk tier
+            cache.put(key, ranked, false);
         }
+        return ranked;
+    }
 
-        // Second pass: Score sentences
-        double[] sentenceScores = new double[sentences.length];
-        for (int i = 0; i < sentences.length; i++) {
-            String cleaned = cleanText(sentences[i]);
-            if (cleaned.isEmpty()) continue;
-            String[] words = cleaned.split(WORD_SPLIT_PATTERN);
-            double score = 0.0;
-            for (String word : words) {
-                if (word.isEmpty()) continue;
-                score += wordFrequency.getOrDefault(word, 0);
+    // Ranking of a large file straight from its mapping, cached under the file's bytes
+    private RankedSummary rankCached(PagedTextModel text) {
+        SummaryCache cache = SummaryCache.shared();
+        String key;
+        try {
+            key = SummaryCache.fileKey(CACHE_VARIANT, text.file());
+        } catch (IOException e) {
+            key = null; // Still summarized from the mapping, just not cached
+        }
+        RankedSummary ranked = key == null ? null : cache.get(key);
+        if (ranked == null) {
+            SummaryScheduler.checkCancelled();
+            if (Language.isConfigured()) {
+                // The mapping tokenizes with the original rules only
+                ranked = rank(text.text());
+            } else {
+                StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.PREPROCESS);
+                DocumentStatistics statistics = text.tokenizeVerbatim();
+                timer.end(statistics);
+                SummaryScheduler.checkCancelled();
+                ranked = rank(statistics);
             }
-            sentenceScores[i] = score;
+            if (key != null) {
+                cache.put(key, ranked);
+            }
+        }
+        return ranked;
+    }
+
+    // Score every sentence and rank them all (ties go to the earlier one)
+    private RankedSummary rank(String text) {
+        Language language = Language.configured(text);
+        if (language != null) {
+            StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.PREPROCESS);
+            DocumentStatistics statistics = SentenceSegmenter.segment(text, language);
+            timer.end(statistics);
+            SummaryScheduler.checkCancelled();
+            return rank(statistics);
+        }
+        if (text.length() >= ParallelSummarizer.MIN_PARALLEL_CHARS) {
+            return rankParallel(text);
         }
 
-        // Pair sentences with scores and indices
-        List<SentenceScore> scoredSentences = new ArrayList<>();
-        for (int i = 0; i < sentences.length; i++) {
-            scoredSentences.add(new SentenceScore(sentences[i], sentenceScores[i], i));
+        // Single pass: split sentences and map every word to a term ID in this thread's reusable table
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.PREPROCESS);
+        DocumentStatistics statistics = new DocumentStatistics(TermDictionary.reusable());
+        new Tokenizer(statistics.dictionary).tokenizeVerbatim(text, statistics);
+        timer.end(statistics);
+        SummaryScheduler.checkCancelled();
+        return rank(statistics);
+    }
+
+    private RankedSummary rank(DocumentStatistics statistics) {
+        if (statistics.sentences.size() >= ParallelSummarizer.MIN_PARALLEL_SENTENCES) {
+            return rankParallel(statistics);
         }
+        List<int[]> sentenceTerms = statistics.sentenceTerms;
 
-        // Use a priority queue to keep top N sentences
-        PriorityQueue<SentenceScore> pq = new PriorityQueue<>(summarySentencesCount, Comparator.comparingDouble(a -> a.score));
-        for (SentenceScore ss : scoredSentences) {
-            if (pq.size() < summarySentencesCount) {
-                pq.offer(ss);
-            } else if (ss.score > pq.peek().score) {
-                pq.poll();
-                pq.offer(ss);
+        // First pass: Calculate word frequencies
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.COUNT);
+        TermDictionary wordFrequency = statistics.dictionary;
+        boolean[] counted = countedTerms(statistics);
+        for (int[] terms : sentenceTerms) {
+            for (int term : terms) {
+                if (counted == null || counted[term]) {
+                    wordFrequency.increment(term);
+                }
             }
         }
+        timer.end();
 
-        // Extract top sentences and sort them by original order
-        List<SentenceScore> topSentences = new ArrayList<>(pq);
-        topSentences.sort(Comparator.comparingInt(a -> a.index));
+        SummaryScheduler.checkCancelled();
 
-        // Build the summary
-        StringBuilder summary = new StringBuilder();
-        for (SentenceScore ss : topSentences) {
-            summary.append(ss.sentence).append(" ");
+        // Second pass: Score sentences
+        timer = StageMetrics.start(StageMetrics.Stage.SCORE);
+        double[] sentenceScores = new double[sentenceTerms.size()];
+        for (int i = 0; i < sentenceTerms.size(); i++) {
+            double score = 0.0;
+            for (int term : sentenceTerms.get(i)) {
+                score += wordFrequency.count(term);
+            }
+            sentenceScores[i] = score;
         }
+        timer.end();
 
-        return summary.toString().trim();
+        return rankAll(statistics, sentenceScores);
     }
 
-    // Efficient text cleaning without regex
-    private String cleanText(String text) {
-        StringBuilder sb = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            if (Character.isLetter(c) || Character.isWhitespace(c)) {
-                sb.append(Character.toLowerCase(c));
+    // Every word counts with the original rules; in language mode the language's stopwords do not
+    private static boolean[] countedTerms(DocumentStatistics statistics) {
+        if (statistics.language == null) {
+            return null;
+        }
+        boolean[] counted = new boolean[statistics.dictionary.size()];
+        Arrays.fill(counted, true);
+        for (String stopWord : statistics.language.stopWords) {
+            int id = statistics.dictionary.find(stopWord);
+            if (id >= 0) {
+                counted[id] = false;
             }
         }
-        return sb.toString();
+        return counted;
+    }
+
+    private static RankedSummary rankAll(DocumentStatistics statistics, double[] sentenceScores) {
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.RANK);
+        int[] ranking = TopSentences.rankAll(sentenceScores, sentenceScores.length);
+        timer.end();
+        return new RankedSummary(statistics.sentences, ranking);
     }
 
-    // Helper class to store sentence information
-    private static class SentenceScore {
-        String sentence;
-        double score;
-        int index;
+    // Fork/join pipeline for very large texts; produces the same scores as the sequential one
+    private RankedSummary rankParallel(String text) {
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.PREPROCESS);
+        DocumentStatistics statistics = ParallelSummarizer.common().tokenizeVerbatim(text);
+        timer.end(statistics);
+        SummaryScheduler.checkCancelled();
+        return rankParallel(statistics);
+    }
 
-        SentenceScore(String sentence, double score, int index) {
-            this.sentence = sentence;
-            this.score = score;
-            this.index = index;
-        }
+    private RankedSummary rankParallel(DocumentStatistics statistics) {
+        ParallelSummarizer parallel = ParallelSummarizer.common();
+        StageMetrics.Timer timer = StageMetrics.start(StageMetrics.Stage.COUNT);
+        int[] wordFrequency = parallel.countWords(statistics, countedTerms(statistics));
+        timer.end();
+        SummaryScheduler.checkCancelled();
+        timer = StageMetrics.start(StageMetrics.Stage.SCORE);
+        double[] sentenceScores = parallel.scoreSentences(statistics, wordFrequency, false);
+        timer.end();
+        return rankAll(statistics, sentenceScores);
     }
 
-    // Precompile patterns as static final variables for efficiency
-    private static final Pattern SENTENCE_SPLIT_PATTERN = Pattern.compile("(?<=[.!?])\\s+");
-    private static final String WORD_SPLIT_PATTERN = "\\s+";
+    private String buildSummary(List<String> summarySentences) {
+        // Build the summary
+        StringBuilder summary = new StringBuilder();
+        for (String sentence : summarySentences) {
+            summary.append(sentence).append(" ");
+        }
+
+        return summary.toString().trim();
+    }
 }
@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+// Single-pass sentence and word scanner. Characters are normalized as they are read and each
+// word is interned straight from a reusable buffer, so the only allocations per sentence are
+// its text and its int[] of term IDs. A Tokenizer is not thread-safe; use one per thread.
+final class Tokenizer {
+
+    private final TermDictionary dictionary;
+    private char[] word = new char[64];
+    private int wordLength;
+    private int[] terms = new int[64];
+    private int termCount;
+    private final StringBuilder sentence = new StringBuilder(); // Unfinished normalized sentence
+    private boolean pending; // Whether characters were seen since the last period
+    private int maxSentenceChars = Integer.MAX_VALUE;
+
+    Tokenizer(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    // Bound the unfinished sentence of appendNormalized, for input that may have no periods at all
+    // (logs, CSV, OCR dumps): past maxChars the sentence ends at the next whitespace, and a run
+    // without whitespace is cut at twice maxChars. Cut sentences have no trailing period.
+    void limitSentenceLength(int maxChars) {
+        this.maxSentenceChars = Math.max(1, maxChars);
+    }
+
+    // DocumentSummarizer rules: lowercase, keep only [a-z0-9.] and whitespace, end a sentence at
+    // every '.', trim it and split it into words on whitespace. The trailing period stays part of
+    // the last word and text after the last period is ignored, matching the old regex pipeline.
+    // With joinLines, line breaks are read the way readTextFile joins lines (\r\n is one space).
+    void tokenizeNormalized(CharSequence text, boolean joinLines, DocumentStatistics out) {
+        reset();
+        appendNormalized(text, joinLines, out);
+        reset();
+    }
+
+    // Streaming form of tokenizeNormalized: text arrives in consecutive fragments (pages,
+    // paragraphs) and a sentence left unfinished by one fragment is continued by the next
+    void appendNormalized(CharSequence text, boolean joinLines, DocumentStatistics out) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                c = ' ';
+            } else if (c == '\r' && joinLines) {
+                if (i + 1 < length && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                c = ' ';
+            } else {
+                c = Character.toLowerCase(c);
+            }
+
+            if (isSplitSpace(c)) {
+                if (pending) {
+                    sentence.append(c);
+                }
+                endWord();
+                pending = true; // Whitespace alone is enough to start a sentence, as in [^.]+
+                if (sentence.length() > maxSentenceChars) {
+                    cutSentence(out);
+                }
+            } else if (c == '.') {
+                if (pending) {
+                    sentence.append('.');
+                    appendWordChar('.');
+                    endWord();
+                    out.addSentence(trimmed(sentence), takeTerms());
+                    sentence.setLength(0);
+                    pending = false;
+                }
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sentence.append(c);
+                appendWordChar(c);
+                pending = true;
+                if (sentence.length() >= 2L * maxSentenceChars) {
+                    cutSentence(out);
+                }
+            }
+        }
+    }
+
+    // End the unfinished sentence where it is, see limitSentenceLength
+    private void cutSentence(DocumentStatistics out) {
+        endWord();
+        String text = trimmed(sentence);
+        if (!text.isEmpty()) {
+            out.addSentence(text, takeTerms());
+        }
+        termCount = 0;
+        sentence.setLength(0);
+        pending = false;
+    }
+
+    // Drop any unfinished sentence
+    void reset() {
+        sentence.setLength(0);
+        pending = false;
+        termCount = 0;
+        wordLength = 0;
+    }
+
+    // TextSummarizerAppWithLineWrap rules: sentences end at whitespace that follows '.', '!' or
+    // '?' and keep their original text. Words are runs of letters (lowercased) separated by
+    // whitespace; digits and punctuation are dropped without breaking the word.
+    void tokenizeVerbatim(CharSequence text, DocumentStatistics out) {
+        int length = text.length();
+        int sentenceStart = 0;
+        wordLength = 0;
+        termCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (isSplitSpace(c)) {
+                endWord();
+                if (i > sentenceStart && isTerminator(text.charAt(i - 1))) {
+                    out.addSentence(text, sentenceStart, i, takeTerms());
+                    while (i + 1 < length && isSplitSpace(text.charAt(i + 1))) {
+                        i++;
+                    }
+                    sentenceStart = i + 1;
+                }
+            } else if (Character.isLetter(c)) {
+                appendWordChar(Character.toLowerCase(c));
+            } else if (Character.isWhitespace(c)) {
+                appendWordChar(c); // Non-ASCII whitespace is kept by cleanText but never splits words
+            }
+        }
+        if (sentenceStart < length) {
+            endWord();
+            out.addSentence(text, sentenceStart, length, takeTerms());
+        }
+        termCount = 0;
+        wordLength = 0;
+    }
+
+    // Whitespace as matched by \s in java.util.regex
+    static boolean isSplitSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    private void appendWordChar(char c) {
+        if (wordLength == word.length) {
+            word = Arrays.copyOf(word, wordLength * 2);
+        }
+        word[wordLength++] = c;
+    }
+
+    private void endWord() {
+        if (wordLength == 0) {
+            return;
+        }
+        if (termCount == terms.length) {
+            terms = Arrays.copyOf(terms, termCount * 2);
+        }
+        terms[termCount++] = dictionary.intern(word, 0, wordLength);
+        wordLength = 0;
+    }
+
+    private int[] takeTerms() {
+        int[] sentenceTerms = Arrays.copyOf(terms, termCount);
+        termCount = 0;
+        return sentenceTerms;
+    }
+
+    // Equivalent of toString().trim() without the intermediate copy
+    private static String trimmed(StringBuilder sentence) {
+        int start = 0;
+        int end = sentence.length();
+        while (start < end && sentence.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && sentence.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return sentence.substring(start, end);
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+// Picks the highest scoring sentences from a dense score array without boxing. Higher scores
+// win and ties go to the earlier sentence; the result is in original sentence order.
+final class TopSentences {
+
+    private TopSentences() {
+    }
+
+    static int[] select(double[] scores, int count, int topN) {
+        return select(scores, 0, count, topN);
+    }
+
+    // Top N among the sentences in [from, to)
+    static int[] select(double[] scores, int from, int to, int topN) {
+        int k = Math.min(Math.max(topN, 0), to - from);
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = from; i < to && k > 0; i++) {
+            size = offer(heap, size, i, scores);
+        }
+        Arrays.sort(heap);
+        return heap;
+    }
+
+    // Top N among the given candidate sentences
+    static int[] select(double[] scores, int[] candidates, int topN) {
+        int k = Math.min(Math.max(topN, 0), candidates.length);
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < candidates.length && k > 0; i++) {
+            size = offer(heap, size, candidates[i], scores);
+        }
+        Arrays.sort(heap);
+        return heap;
+    }
+
+    // Every sentence index, best first: the full ranking that any top N is a prefix of
+    static int[] rankAll(double[] scores, int count) {
+        int[] ranking = new int[count];
+        for (int i = 0; i < count; i++) {
+            ranking[i] = i;
+        }
+        // Bottom-up merge sort on primitives; stable, though the order is total anyway
+        int[] buffer = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int from = 0; from < count - width; from += 2 * width) {
+                merge(ranking, buffer, from, from + width, Math.min(from + 2 * width, count), scores);
+            }
+        }
+        return ranking;
+    }
+
+    private static void merge(int[] ranking, int[] buffer, int from, int middle, int to, double[] scores) {
+        System.arraycopy(ranking, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && !better(buffer[right], buffer[left], scores))) {
+                ranking[i] = buffer[left++];
+            } else {
+                ranking[i] = buffer[right++];
+            }
+        }
+    }
+
+    // Add a sentence to the min-heap of the best candidates seen so far (the root is the weakest
+    // one) and return the new heap size
+    private static int offer(int[] heap, int size, int sentence, double[] scores) {
+        if (size < heap.length) {
+            heap[size] = sentence;
+            siftUp(heap, size, scores);
+            return size + 1;
+        }
+        if (better(sentence, heap[0], scores)) {
+            heap[0] = sentence;
+            siftDown(heap, size, scores);
+        }
+        return size;
+    }
+
+    // Whether sentence a ranks above sentence b
+    static boolean better(int a, int b, double[] scores) {
+        int order = Double.compare(scores[a], scores[b]);
+        return order > 0 || (order == 0 && a < b);
+    }
+
+    private static void siftUp(int[] heap, int position, double[] scores) {
+        int value = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!better(heap[parent], value, scores)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = value;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] scores) {
+        int position = 0;
+        int value = heap[0];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && better(heap[child], heap[child + 1], scores)) {
+                child++;
+            }
+            if (!better(value, heap[child], scores)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = value;
+    }
+}
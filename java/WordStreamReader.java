@@ -0,0 +1,213 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.apache.poi.hwpf.usermodel.Range;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+// Streams Word documents paragraph by paragraph. For .docx the main document part is read
+// straight from the zip with a SAX parser, so memory stays bounded by the longest paragraph
+// instead of a full XWPFDocument model. For .doc, HWPF still has to load the document, but
+// paragraphs are handed out one at a time instead of being collected into one String.
+public class WordStreamReader {
+
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String MARKUP_COMPATIBILITY_NAMESPACE = "http://schemas.openxmlformats.org/markup-compatibility/2006";
+    private static final String OFFICE_DOCUMENT_RELATIONSHIP = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument";
+    private static final String DEFAULT_DOCUMENT_PART = "word/document.xml";
+
+    // Read a .docx and feed its sentences into new statistics paragraph by paragraph
+    public static DocumentStatistics readDocx(String filename) throws IOException {
+        DocumentStatistics statistics = new DocumentStatistics();
+        Tokenizer tokenizer = new Tokenizer(statistics.dictionary);
+        extractDocx(filename, text -> tokenizer.appendNormalized(text, false, statistics));
+        return statistics;
+    }
+
+    // Read a .doc and feed its sentences into new statistics paragraph by paragraph
+    public static DocumentStatistics readDoc(String filename) throws IOException {
+        DocumentStatistics statistics = new DocumentStatistics();
+        Tokenizer tokenizer = new Tokenizer(statistics.dictionary);
+        extractDoc(filename, text -> tokenizer.appendNormalized(text, false, statistics));
+        return statistics;
+    }
+
+    // The whole text of a .docx in one String, as DocumentSummarizer.readFile returns it. This
+    // goes through POI's full model, so it includes headers, footers and notes.
+    static String readDocxText(String filename) throws IOException {
+        try (FileInputStream fis = new FileInputStream(filename);
+             XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(fis))) {
+            return extractor.getText();
+        }
+    }
+
+    // The paragraphs of a .doc joined with spaces, as DocumentSummarizer.readFile returns them
+    static String readDocText(String filename) throws IOException {
+        try (FileInputStream fis = new FileInputStream(filename);
+             WordExtractor extractor = new WordExtractor(new HWPFDocument(fis))) {
+            StringBuilder content = new StringBuilder();
+            for (String para : extractor.getParagraphText()) {
+                content.append(para).append(" ");
+            }
+            return content.toString();
+        }
+    }
+
+    // Pass the text of every body paragraph, followed by a line break, to paragraphText.
+    // Runs keep their tabs and breaks; deleted revisions, field codes and the fallback copy
+    // of alternate content are skipped. Headers, footers and notes are not read.
+    static void extractDocx(String filename, Consumer<String> paragraphText) throws IOException {
+        try (ZipFile zip = new ZipFile(filename)) {
+            ZipEntry part = zip.getEntry(documentPartName(zip));
+            if (part == null) {
+                throw new IOException("No main document part in " + filename);
+            }
+            try (InputStream in = zip.getInputStream(part)) {
+                newParser().parse(in, new ParagraphHandler(paragraphText));
+            }
+        } catch (SAXException e) {
+            throw new IOException("Malformed document XML in " + filename, e);
+        }
+    }
+
+    // Same paragraphs and separators as readDocText, which joins WordExtractor.getParagraphText with spaces
+    static void extractDoc(String filename, Consumer<String> paragraphText) throws IOException {
+        try (FileInputStream fis = new FileInputStream(filename);
+             HWPFDocument document = new HWPFDocument(fis)) {
+            Range range;
+            try {
+                range = document.getRange();
+            } catch (RuntimeException e) {
+                // WordExtractor falls back to the raw text pieces when paragraphs cannot be built
+                try (WordExtractor extractor = new WordExtractor(document)) {
+                    paragraphText.accept(extractor.getTextFromPieces() + " ");
+                }
+                return;
+            }
+            int paragraphs = range.numParagraphs();
+            for (int i = 0; i < paragraphs; i++) {
+                String text = range.getParagraph(i).text();
+                if (text.endsWith("\r")) {
+                    text = text + "\n";
+                }
+                paragraphText.accept(text + " ");
+            }
+        }
+    }
+
+    // Target of the officeDocument relationship in _rels/.rels; almost always word/document.xml
+    private static String documentPartName(ZipFile zip) throws IOException, SAXException {
+        ZipEntry rels = zip.getEntry("_rels/.rels");
+        if (rels == null) {
+            return DEFAULT_DOCUMENT_PART;
+        }
+        String[] target = {DEFAULT_DOCUMENT_PART};
+        try (InputStream in = zip.getInputStream(rels)) {
+            newParser().parse(in, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if (localName.equals("Relationship")
+                            && OFFICE_DOCUMENT_RELATIONSHIP.equals(attributes.getValue("Type"))) {
+                        String value = attributes.getValue("Target");
+                        target[0] = value.startsWith("/") ? value.substring(1) : value;
+                    }
+                }
+            });
+        }
+        return target[0];
+    }
+
+    private static SAXParser newParser() throws IOException, SAXException {
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            // Word parts never need a DTD; refusing one rules out external entity tricks
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newSAXParser();
+        } catch (ParserConfigurationException e) {
+            throw new IOException("No usable XML parser", e);
+        }
+    }
+
+    private static final class ParagraphHandler extends DefaultHandler {
+        private final Consumer<String> paragraphText;
+        private final StringBuilder paragraph = new StringBuilder();
+        private boolean inText;      // Inside <w:t>
+        private int skippedDepth;    // Nesting depth inside content that must not be read
+
+        ParagraphHandler(Consumer<String> paragraphText) {
+            this.paragraphText = paragraphText;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (skippedDepth > 0 || isSkipped(uri, localName)) {
+                skippedDepth++;
+                return;
+            }
+            if (!WORD_NAMESPACE.equals(uri)) {
+                return;
+            }
+            switch (localName) {
+                case "t":
+                    inText = true;
+                    break;
+                case "tab":
+                    paragraph.append('\t');
+                    break;
+                case "br":
+                case "cr":
+                    paragraph.append('\n');
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (skippedDepth > 0) {
+                skippedDepth--;
+                return;
+            }
+            if (!WORD_NAMESPACE.equals(uri)) {
+                return;
+            }
+            if (localName.equals("t")) {
+                inText = false;
+            } else if (localName.equals("p")) {
+                paragraph.append('\n');
+                paragraphText.accept(paragraph.toString());
+                paragraph.setLength(0);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText && skippedDepth == 0) {
+                paragraph.append(ch, start, length);
+            }
+        }
+
+        private static boolean isSkipped(String uri, String localName) {
+            if (MARKUP_COMPATIBILITY_NAMESPACE.equals(uri)) {
+                return localName.equals("Fallback");
+            }
+            return WORD_NAMESPACE.equals(uri)
+                    && (localName.equals("delText") || localName.equals("instrText"));
+        }
+    }
+}